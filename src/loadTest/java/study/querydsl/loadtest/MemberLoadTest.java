@@ -0,0 +1,196 @@
+package study.querydsl.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.querydsl.QuerydslApplication;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/*
+ * MemberController 엔드포인트 부하테스트 ( ./gradlew loadTest )
+ *
+ * 인메모리 H2 로 애플리케이션을 띄우고 InitMember 가 데이터를 다 넣을 때까지 기다린 뒤,
+ * 필터/페이지 조합을 섞은 요청을 concurrency 개의 스레드가 쉬지 않고 보낸다. ( closed loop )
+ * 결과는 시나리오별 처리량, p50/p99/p999, 에러율을 JSON 파일로 남긴다.
+ *
+ * 설정 ( -DloadTest.xxx=... )
+ *   members, teams, concurrency, warmupSeconds, durationSeconds, seed, seedTimeoutSeconds
+ */
+public class MemberLoadTest {
+
+    private static final HttpClient client = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        File report = new File(args.length > 0 ? args[0] : "build/load-test/report.json");
+        int members = Integer.getInteger("loadTest.members", 100_000);
+        int teams = Integer.getInteger("loadTest.teams", 1_000);
+        int concurrency = Integer.getInteger("loadTest.concurrency", 32);
+        int warmupSeconds = Integer.getInteger("loadTest.warmupSeconds", 10);
+        int durationSeconds = Integer.getInteger("loadTest.durationSeconds", 60);
+        long seed = Long.getLong("loadTest.seed", 0L);
+        int seedTimeoutSeconds = Integer.getInteger("loadTest.seedTimeoutSeconds", 600);
+
+        ConfigurableApplicationContext context = SpringApplication.run(QuerydslApplication.class,
+                "--server.port=0",
+                "--spring.profiles.active=local",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.search.backend.directory.type=local-heap",
+                "--decorator.datasource.p6spy.enable-logging=false",
+                "--logging.level.org.hibernate.SQL=warn",
+                "--init-member.member-count=" + members,
+                "--init-member.team-count=" + teams,
+                "--init-member.seed=" + seed);
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            String baseUrl = "http://localhost:" + port;
+            awaitSeedData(baseUrl, members, Duration.ofSeconds(seedTimeoutSeconds));
+
+            List<Scenario> scenarios = scenarios(teams);
+            run(baseUrl, scenarios, concurrency, warmupSeconds, seed); // 워밍업 결과는 버린다.
+            Map<String, LatencyRecorder> results = run(baseUrl, scenarios, concurrency, durationSeconds, seed + 1);
+
+            Map<String, Object> output = new LinkedHashMap<>();
+            output.put("members", members);
+            output.put("teams", teams);
+            output.put("concurrency", concurrency);
+            output.put("durationSeconds", durationSeconds);
+            Map<String, Object> summaries = new LinkedHashMap<>();
+            LatencyRecorder total = new LatencyRecorder();
+            results.forEach((name, recorder) -> {
+                summaries.put(name, recorder.summary(durationSeconds));
+                total.merge(recorder);
+            });
+            summaries.put("total", total.summary(durationSeconds));
+            output.put("scenarios", summaries);
+
+            report.getParentFile().mkdirs();
+            new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(report, output);
+            System.out.println("load test report : " + report.getAbsolutePath());
+        } finally {
+            context.close();
+        }
+    }
+
+    // 요청 비율 ( weight ) 과 요청 URL 생성기
+    private static List<Scenario> scenarios(int teams) {
+        List<Scenario> scenarios = new ArrayList<>();
+        // /v1 은 나이 조건을 항상 같이 보낸다. ( MemberJpaRepository.search 는 ageGoe, ageLoe 가 없으면 실패한다. )
+        scenarios.add(new Scenario("v1_team", 20, r -> "/v1/members?teamName=team" + zipfLike(r, teams) + "&ageGoe=0&ageLoe=99"));
+        scenarios.add(new Scenario("v1_username", 20, r -> "/v1/members?username=member" + r.nextInt(1000) + "&ageGoe=0&ageLoe=99"));
+        scenarios.add(new Scenario("v2_page", 20, r -> "/v2/members?page=" + r.nextInt(50) + "&size=" + pageSize(r)));
+        scenarios.add(new Scenario("v2_age", 10, r -> "/v2/members?ageGoe=" + (20 + r.nextInt(20)) + "&ageLoe=" + (40 + r.nextInt(20)) + "&size=" + pageSize(r)));
+        scenarios.add(new Scenario("v3_page", 20, r -> "/v3/members?page=" + r.nextInt(50) + "&size=" + pageSize(r)));
+        scenarios.add(new Scenario("v3_team_age", 10, r -> "/v3/members?teamName=team" + zipfLike(r, teams) + "&ageGoe=30&size=" + pageSize(r)));
+        return scenarios;
+    }
+
+    private static int pageSize(Random r) {
+        int[] sizes = {10, 20, 20, 50, 100};
+        return sizes[r.nextInt(sizes.length)];
+    }
+
+    // 작은 번호의 팀이 더 자주 선택되도록 한다. ( 실제 팀 크기 분포와 비슷하게 )
+    private static int zipfLike(Random r, int teams) {
+        return (int) Math.min(teams - 1, Math.floor(Math.pow(teams, r.nextDouble())) - 1);
+    }
+
+    private static Map<String, LatencyRecorder> run(String baseUrl, List<Scenario> scenarios, int concurrency,
+                                                    int seconds, long seed) throws Exception {
+        int totalWeight = scenarios.stream().mapToInt(Scenario::weight).sum();
+        long deadline = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+        ExecutorService executor = Executors.newFixedThreadPool(concurrency);
+        try {
+            List<Future<Map<String, LatencyRecorder>>> futures = new ArrayList<>();
+            for (int worker = 0; worker < concurrency; worker++) {
+                Random random = new Random(seed * 31 + worker);
+                futures.add(executor.submit(() -> {
+                    Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+                    while (System.nanoTime() < deadline) {
+                        Scenario scenario = pick(scenarios, totalWeight, random);
+                        URI uri = URI.create(baseUrl + scenario.path().apply(random));
+                        long start = System.nanoTime();
+                        boolean success;
+                        try {
+                            HttpResponse<Void> response = client.send(
+                                    HttpRequest.newBuilder(uri).timeout(Duration.ofSeconds(30)).GET().build(),
+                                    HttpResponse.BodyHandlers.discarding());
+                            success = response.statusCode() < 400;
+                        } catch (Exception e) {
+                            success = false;
+                        }
+                        recorders.computeIfAbsent(scenario.name(), name -> new LatencyRecorder())
+                                .record(System.nanoTime() - start, success);
+                    }
+                    return recorders;
+                }));
+            }
+
+            Map<String, LatencyRecorder> merged = new LinkedHashMap<>();
+            scenarios.forEach(s -> merged.put(s.name(), new LatencyRecorder()));
+            for (Future<Map<String, LatencyRecorder>> future : futures) {
+                future.get().forEach((name, recorder) -> merged.get(name).merge(recorder));
+            }
+            return merged;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Scenario pick(List<Scenario> scenarios, int totalWeight, Random random) {
+        int r = random.nextInt(totalWeight);
+        for (Scenario scenario : scenarios) {
+            r -= scenario.weight();
+            if (r < 0) {
+                return scenario;
+            }
+        }
+        return scenarios.get(scenarios.size() - 1);
+    }
+
+    // InitMember 는 기동 후 비동기로 데이터를 넣으므로 다 들어갈 때까지 기다린다.
+    // totalElements 는 추정치일 수 있으므로 ( MemberCountEstimator ) members 번째 회원이 조회되는지로 확인한다.
+    // ageGoe=0 : 모든 회원이 맞는 조건이지만, 조건 없는 요청은 낮은 우선순위라 503 으로 거절될 수 있어서 붙인다.
+    private static void awaitSeedData(String baseUrl, int members, Duration timeout) throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        HttpRequest request = HttpRequest.newBuilder(URI.create(baseUrl + "/v4/members?ageGoe=0&size=1&page=" + (members - 1)))
+                .timeout(Duration.ofSeconds(30))
+                .GET()
+                .build();
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (true) {
+            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() == 200
+                    && !objectMapper.readTree(response.body()).path("content").isEmpty()) {
+                return;
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                throw new IllegalStateException("seed data 가 " + timeout + " 안에 들어오지 않았습니다. members = " + members
+                        + ", last status = " + response.statusCode());
+            }
+            System.out.println("waiting for seed data... status = " + response.statusCode());
+            Thread.sleep(1000);
+        }
+    }
+
+    private record Scenario(String name, int weight, Function<Random, String> path) {
+    }
+}
@@ -0,0 +1,109 @@
+package study.querydsl.admission;
+
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * AIMD 동시 실행 한도
+ * 한도를 넘는 요청은 기다리게 하지 않고 바로 거절한다. ( 커넥션 풀 앞에 요청이 쌓여서 모든 엔드포인트의 지연이 같이 무너지는 것 방지 )
+ * - 처리 시간, 요청 스레드 풀 큐 대기 시간, 커넥션 풀 대기 시간 중 하나가 기준을 넘거나 요청이 혼잡으로 실패하면 한도를 backoffRatio 배로 줄인다. ( multiplicative decrease )
+ *   잘못된 요청 ( 4xx ) 은 실패로 넘기지 않는다. ( MemberDeadlines.isCongestion )
+ *   한도는 실행 스레드에 넘기기 전에 받으므로 스레드 풀 큐에서 기다리는 요청도 실행중 ( inFlight ) 으로 센다.
+ * - 한도의 절반 이상이 실행중일 때 시작해서 빠르게 끝난 요청마다 1/limit 씩 늘린다. ( additive increase )
+ * - LOW 요청은 한도의 lowPriorityShare 만큼만 동시에 실행한다.
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long queueWaitThresholdNanos;
+    private final long poolWaitThresholdNanos;
+    private final double backoffRatio;
+    private final double lowPriorityShare;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private double limit;
+    private int inFlight;
+    private int lowInFlight;
+
+    public AdaptiveConcurrencyLimiter(MemberAdmissionProperties properties) {
+        this.minLimit = properties.getMinLimit();
+        this.maxLimit = properties.getMaxLimit();
+        this.latencyThresholdNanos = properties.getLatencyThreshold().toNanos();
+        this.queueWaitThresholdNanos = properties.getQueueWaitThreshold().toNanos();
+        this.poolWaitThresholdNanos = properties.getPoolWaitThreshold().toNanos();
+        this.backoffRatio = properties.getBackoffRatio();
+        this.lowPriorityShare = properties.getLowPriorityShare();
+        this.limit = Math.max(minLimit, Math.min(maxLimit, properties.getInitialLimit()));
+    }
+
+    public synchronized Optional<Permit> tryAcquire(RequestPriority priority) {
+        int currentLimit = (int) limit;
+        boolean lowLaneFull = priority == RequestPriority.LOW
+                && lowInFlight >= Math.max(1, (int) (currentLimit * lowPriorityShare));
+        if (inFlight >= currentLimit || lowLaneFull) {
+            rejected.incrementAndGet();
+            return Optional.empty();
+        }
+        inFlight++;
+        if (priority == RequestPriority.LOW) {
+            lowInFlight++;
+        }
+        return Optional.of(new Permit(priority, inFlight));
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    private synchronized void release(Permit permit, long latencyNanos, long queueWaitNanos, long poolWaitNanos, boolean failed) {
+        inFlight--;
+        if (permit.priority == RequestPriority.LOW) {
+            lowInFlight--;
+        }
+        if (failed || latencyNanos > latencyThresholdNanos
+                || queueWaitNanos > queueWaitThresholdNanos || poolWaitNanos > poolWaitThresholdNanos) {
+            limit = Math.max(minLimit, limit * backoffRatio);
+        } else if (permit.inFlightAtAcquire * 2 >= limit) {
+            limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+    }
+
+    public final class Permit {
+
+        private final RequestPriority priority;
+        private final int inFlightAtAcquire;
+        private final long acquiredAtNanos = System.nanoTime();
+        private volatile long startedAtNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(RequestPriority priority, int inFlightAtAcquire) {
+            this.priority = priority;
+            this.inFlightAtAcquire = inFlightAtAcquire;
+        }
+
+        // 실행 스레드가 요청을 시작할 때 호출한다. acquire 부터 여기까지가 스레드 풀 큐 대기 시간이다. ( 호출하지 않으면 0 )
+        public void started() {
+            startedAtNanos = System.nanoTime();
+        }
+
+        // 요청 처리가 끝나면 한번만 호출한다. ( 처리 시간은 acquire 부터 잰다. ) failed : 혼잡으로 실패했는지
+        public void release(long poolWaitNanos, boolean failed) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long queueWaitNanos = startedAtNanos == 0 ? 0 : startedAtNanos - acquiredAtNanos;
+            AdaptiveConcurrencyLimiter.this.release(this, System.nanoTime() - acquiredAtNanos, queueWaitNanos, poolWaitNanos, failed);
+        }
+    }
+}
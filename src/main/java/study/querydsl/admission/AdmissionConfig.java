@@ -0,0 +1,15 @@
+package study.querydsl.admission;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(MemberAdmissionProperties.class)
+public class AdmissionConfig {
+
+    @Bean
+    public AdaptiveConcurrencyLimiter memberConcurrencyLimiter(MemberAdmissionProperties properties) {
+        return new AdaptiveConcurrencyLimiter(properties);
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.admission;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// MemberController 동시 실행 한도 ( member.admission )
+@Getter @Setter
+@ConfigurationProperties("member.admission")
+public class MemberAdmissionProperties {
+
+    private boolean enabled = true;
+    private int initialLimit = 20;
+    private int minLimit = 4;
+    // 요청 스레드 풀 ( MemberDeadlines ) 크기이기도 하다. 커넥션 풀보다 크게 잡아도 풀 대기 시간이 늘면 줄어든다.
+    private int maxLimit = 64;
+    // 요청 처리 시간 / 요청 스레드 풀 큐 대기 시간 / 커넥션 풀 대기 시간이 이보다 길면 한도를 줄인다.
+    private Duration latencyThreshold = Duration.ofMillis(500);
+    private Duration queueWaitThreshold = Duration.ofMillis(20);
+    private Duration poolWaitThreshold = Duration.ofMillis(50);
+    private double backoffRatio = 0.9;
+    // LOW 요청이 쓸 수 있는 한도의 비율
+    private double lowPriorityShare = 0.25;
+}
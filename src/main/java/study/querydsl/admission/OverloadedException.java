@@ -0,0 +1,20 @@
+package study.querydsl.admission;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+// 동시 실행 한도를 넘어서 바로 거절한 요청 ( 503 + Retry-After )
+public class OverloadedException extends ResponseStatusException {
+
+    public OverloadedException(String endpoint) {
+        super(HttpStatus.SERVICE_UNAVAILABLE, endpoint + " 요청이 많아 처리할 수 없습니다. 잠시 후 다시 시도해주세요.");
+    }
+
+    @Override
+    public HttpHeaders getHeaders() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.RETRY_AFTER, "1");
+        return headers;
+    }
+}
@@ -0,0 +1,6 @@
+package study.querydsl.admission;
+
+// LOW : 조건 없는 검색, 큰 페이지, 대량 조회처럼 비싼 요청. 동시 실행 한도의 일부만 쓸 수 있다.
+public enum RequestPriority {
+    NORMAL, LOW
+}
@@ -0,0 +1,9 @@
+package study.querydsl.cache;
+
+// 다른 노드에 보내는 캐시 무효화 한건 ( version : 보낸 노드에서 커밋한 순서. 노드마다 단조 증가한다. )
+public record CacheInvalidation(EntityType entity, long id, long version) {
+
+    public enum EntityType {
+        MEMBER, TEAM
+    }
+}
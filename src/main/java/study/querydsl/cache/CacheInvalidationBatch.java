@@ -0,0 +1,93 @@
+package study.querydsl.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/*
+ * 한 노드가 짧은 시간동안 모은 무효화 메시지 묶음
+ * 포맷 : [포맷 버전 byte][보낸 노드 id : varint 길이 + UTF-8][건수 varint] + 건마다 [엔티티 byte][id varint][version varint]
+ * 회원 한명 무효화가 수 바이트라서 트랜스포트 ( 메시지 브로커 등 ) 부하가 작다.
+ * 모르는 엔티티 byte 는 ( 새 버전 노드가 보낸 메시지 등 ) 그 건만 건너뛴다.
+ */
+@Slf4j
+public record CacheInvalidationBatch(String originNodeId, List<CacheInvalidation> invalidations) {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final CacheInvalidation.EntityType[] TYPES = CacheInvalidation.EntityType.values();
+
+    public byte[] encode() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(16 + invalidations.size() * 8);
+        out.write(FORMAT_VERSION);
+        byte[] origin = originNodeId.getBytes(StandardCharsets.UTF_8);
+        writeVarLong(out, origin.length);
+        out.writeBytes(origin);
+        writeVarLong(out, invalidations.size());
+        for (CacheInvalidation invalidation : invalidations) {
+            out.write(invalidation.entity().ordinal());
+            writeVarLong(out, invalidation.id());
+            writeVarLong(out, invalidation.version());
+        }
+        return out.toByteArray();
+    }
+
+    // 잘리거나 깨진 메시지는 ( 트랜스포트 오류, 다른 포맷 등 ) 배열 범위를 벗어나기 전에 IllegalArgumentException 으로 거른다.
+    public static CacheInvalidationBatch decode(byte[] payload) {
+        int[] position = {0};
+        int format = readByte(payload, position);
+        if (format != FORMAT_VERSION) {
+            throw new IllegalArgumentException("unsupported cache invalidation format: " + format);
+        }
+        long originLength = readVarLong(payload, position);
+        if (originLength < 0 || originLength > payload.length - position[0]) {
+            throw new IllegalArgumentException("malformed cache invalidation origin length: " + originLength);
+        }
+        String origin = new String(payload, position[0], (int) originLength, StandardCharsets.UTF_8);
+        position[0] += (int) originLength;
+        long count = readVarLong(payload, position);
+        if (count < 0 || count > (payload.length - position[0]) / 3) { // 건마다 최소 3바이트
+            throw new IllegalArgumentException("malformed cache invalidation count: " + count);
+        }
+        List<CacheInvalidation> invalidations = new ArrayList<>((int) count);
+        for (int i = 0; i < count; i++) {
+            int type = readByte(payload, position);
+            long id = readVarLong(payload, position);
+            long version = readVarLong(payload, position);
+            if (type >= TYPES.length) {
+                log.warn("unknown cache invalidation entity type skipped. type={}, id={}, origin={}", type, id, origin);
+                continue;
+            }
+            invalidations.add(new CacheInvalidation(TYPES[type], id, version));
+        }
+        return new CacheInvalidationBatch(origin, invalidations);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(byte[] payload, int[] position) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte(payload, position);
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("malformed varint");
+    }
+
+    private static int readByte(byte[] payload, int[] position) {
+        if (position[0] >= payload.length) {
+            throw new IllegalArgumentException("truncated cache invalidation batch at " + position[0]);
+        }
+        return payload[position[0]++] & 0xFF;
+    }
+}
@@ -0,0 +1,195 @@
+package study.querydsl.cache;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 노드간 캐시 무효화 버스
+ * 로드밸런서 뒤에 여러 노드가 떠 있으면 다른 노드의 커밋으로 이 노드의 캐시가 오래된 값이 된다.
+ * 커밋이 끝나면 (엔티티, id, version) 메시지를 모아두었다가 batchWindow 동안 모인 메시지를 한번에 보내고,
+ * 다른 노드에서 받은 메시지는 이 노드의 캐시 ( MemberTeamNearCache, JPA 2차 캐시 ) 에 적용한다.
+ * 롤백된 변경은 보내지 않는다.
+ * 보내기에 실패하면 메시지를 outbox 에 되돌려놓고 batchWindow 부터 두배씩 ( 최대 MAX_RETRY_DELAY_MILLIS ) 늘려가며 다시 보낸다.
+ * 받은 메시지를 처리하다 실패해도 로그만 남긴다. ( 루프백처럼 보내는 쪽 스레드에서 받으면 보낸 노드의 flush 가 실패로 재전송하게 된다. )
+ * 트랜스포트 빈을 등록하지 않으면 노드 하나짜리 루프백을 쓴다. ( 다른 노드로는 전달되지 않는다. )
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus {
+
+    private static final long MAX_RETRY_DELAY_MILLIS = 5_000;
+
+    private final CacheInvalidationTransport transport;
+    private final MemberTeamNearCache nearCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final String nodeId;
+    private final long batchWindowMillis;
+
+    private final ConcurrentLinkedQueue<CacheInvalidation> outbox = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+    private final AtomicLong versions = new AtomicLong();
+    private final Map<String, Long> appliedVersions = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService scheduler;
+    private int consecutiveFailures; // flush() 안에서만 사용 ( synchronized )
+
+    @Autowired
+    public CacheInvalidationBus(ObjectProvider<CacheInvalidationTransport> transport,
+                                MemberTeamNearCache nearCache,
+                                @Lazy EntityManagerFactory entityManagerFactory, // 엔티티 리스너가 이 빈을 쓰므로 EMF 생성과 순환하지 않게 한다.
+                                @Value("${member.cache.invalidation.node-id:${random.uuid}}") String nodeId,
+                                @Value("${member.cache.invalidation.batch-window-ms:20}") long batchWindowMillis) {
+        this(transport.getIfAvailable(LoopbackCacheInvalidationTransport::new), nearCache, entityManagerFactory, nodeId, batchWindowMillis);
+    }
+
+    public CacheInvalidationBus(CacheInvalidationTransport transport,
+                                MemberTeamNearCache nearCache,
+                                EntityManagerFactory entityManagerFactory,
+                                String nodeId,
+                                long batchWindowMillis) {
+        this.transport = transport;
+        this.nearCache = nearCache;
+        this.entityManagerFactory = entityManagerFactory;
+        this.nodeId = nodeId;
+        this.batchWindowMillis = batchWindowMillis;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "cache-invalidation-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+        transport.subscribe(this::receive);
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    // 트랜잭션 안이면 커밋 후에 보낸다.
+    public void publish(CacheInvalidation.EntityType entity, long id) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(entity, id);
+                }
+            });
+        } else {
+            enqueue(entity, id);
+        }
+    }
+
+    // 모인 메시지를 바로 보낸다. ( 같은 엔티티는 version 이 가장 큰 메시지만 보낸다. )
+    // 실패하면 메시지를 outbox 에 되돌려놓고 다시 보내도록 예약한 뒤 예외를 던진다.
+    public synchronized int flush() {
+        flushScheduled.set(false);
+        Map<String, CacheInvalidation> latest = new LinkedHashMap<>();
+        CacheInvalidation invalidation;
+        while ((invalidation = outbox.poll()) != null) {
+            latest.merge(invalidation.entity() + ":" + invalidation.id(), invalidation,
+                    (current, other) -> current.version() >= other.version() ? current : other);
+        }
+        if (latest.isEmpty()) {
+            return 0;
+        }
+        try {
+            transport.send(new CacheInvalidationBatch(nodeId, new ArrayList<>(latest.values())).encode());
+        } catch (RuntimeException e) {
+            outbox.addAll(latest.values());
+            scheduleRetry();
+            throw e;
+        }
+        consecutiveFailures = 0;
+        return latest.size();
+    }
+
+    // 보낸 노드별로 적용한 마지막 version
+    public long appliedVersion(String originNodeId) {
+        return appliedVersions.getOrDefault(originNodeId, 0L);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        flush();
+    }
+
+    private void enqueue(CacheInvalidation.EntityType entity, long id) {
+        outbox.add(new CacheInvalidation(entity, id, versions.incrementAndGet()));
+        if (flushScheduled.compareAndSet(false, true)) {
+            scheduler.schedule(this::flushQuietly, batchWindowMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void scheduleRetry() {
+        long delay = Math.min(MAX_RETRY_DELAY_MILLIS, Math.max(1, batchWindowMillis) << Math.min(consecutiveFailures, 20));
+        consecutiveFailures++;
+        flushScheduled.set(true); // 재시도 전까지 새 메시지가 더 이른 flush 를 예약하지 않게 한다.
+        try {
+            scheduler.schedule(this::flushQuietly, delay, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) { // 종료 중
+            flushScheduled.set(false);
+        }
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("cache invalidation publish failed. node={}", nodeId, e);
+        }
+    }
+
+    private void receive(byte[] payload) {
+        try {
+            apply(payload);
+        } catch (RuntimeException e) {
+            log.warn("cache invalidation receive failed. node={}, bytes={}", nodeId, payload.length, e);
+        }
+    }
+
+    private void apply(byte[] payload) {
+        CacheInvalidationBatch batch = CacheInvalidationBatch.decode(payload);
+        if (nodeId.equals(batch.originNodeId())) {
+            return;
+        }
+        List<Long> memberIds = new ArrayList<>();
+        long maxVersion = 0;
+        for (CacheInvalidation invalidation : batch.invalidations()) {
+            switch (invalidation.entity()) {
+                case MEMBER -> memberIds.add(invalidation.id());
+                case TEAM -> {
+                    nearCache.invalidateTeam(invalidation.id());
+                    entityManagerFactory.getCache().evict(Team.class, invalidation.id());
+                }
+            }
+            maxVersion = Math.max(maxVersion, invalidation.version());
+        }
+        if (!memberIds.isEmpty()) {
+            nearCache.invalidateAll(memberIds);
+            memberIds.forEach(id -> entityManagerFactory.getCache().evict(Member.class, id));
+        }
+        appliedVersions.merge(batch.originNodeId(), maxVersion, Math::max);
+    }
+}
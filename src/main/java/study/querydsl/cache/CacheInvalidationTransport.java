@@ -0,0 +1,12 @@
+package study.querydsl.cache;
+
+import java.util.function.Consumer;
+
+// 노드간 무효화 메시지 전송 ( 메시지 브로커, 멀티캐스트 등으로 구현한다. )
+// 보낸 노드 자신에게도 전달될 수 있다. ( CacheInvalidationBus 가 걸러낸다. )
+public interface CacheInvalidationTransport {
+
+    void send(byte[] payload);
+
+    void subscribe(Consumer<byte[]> receiver);
+}
@@ -0,0 +1,24 @@
+package study.querydsl.cache;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+// 같은 JVM 안의 구독자에게 바로 전달하는 트랜스포트 ( 테스트 / 단일 노드용 )
+// 한 인스턴스가 하나의 네트워크다. 여러 CacheInvalidationBus 가 같은 인스턴스를 쓰면 서로 다른 노드처럼 동작한다.
+public class LoopbackCacheInvalidationTransport implements CacheInvalidationTransport {
+
+    private final List<Consumer<byte[]>> receivers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(byte[] payload) {
+        for (Consumer<byte[]> receiver : receivers) {
+            receiver.accept(payload.clone());
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<byte[]> receiver) {
+        receivers.add(receiver);
+    }
+}
@@ -0,0 +1,65 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.Collection;
+import java.util.List;
+
+/*
+ * Member / Team 엔티티 리스너 ( 스프링 빈으로 주입받는다 )
+ * 새로 저장된 회원은 캐시에 있을 수 없으므로 수정/삭제만 본다.
+ * flush 시점에 한번 지우고, 커밋 후에 한번 더 지운다.
+ * ( flush ~ 커밋 사이에 다른 스레드가 커밋 전 값을 읽어 다시 채우는 것 방지 )
+ * 다른 노드의 캐시는 CacheInvalidationBus 로 커밋 후에 무효화한다.
+ * 벌크 update / JDBC 수정은 리스너를 타지 않으므로 호출하는 쪽에서 invalidateMembers() 를 호출한다.
+ */
+@Component
+public class MemberTeamCacheInvalidator {
+
+    private final MemberTeamNearCache nearCache;
+    private final CacheInvalidationBus invalidationBus;
+
+    public MemberTeamCacheInvalidator(MemberTeamNearCache nearCache, CacheInvalidationBus invalidationBus) {
+        this.nearCache = nearCache;
+        this.invalidationBus = invalidationBus;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(Object entity) {
+        if (entity instanceof Member member && member.getId() != null) {
+            invalidate(() -> nearCache.invalidate(member.getId()));
+            invalidationBus.publish(CacheInvalidation.EntityType.MEMBER, member.getId());
+        } else if (entity instanceof Team team && team.getId() != null) {
+            invalidate(() -> nearCache.invalidateTeam(team.getId()));
+            invalidationBus.publish(CacheInvalidation.EntityType.TEAM, team.getId());
+        }
+    }
+
+    // 벌크 update / JDBC 로 바꾼 회원
+    public void invalidateMembers(Collection<Long> memberIds) {
+        if (!memberIds.isEmpty()) {
+            List<Long> ids = List.copyOf(memberIds);
+            invalidate(() -> nearCache.invalidateAll(ids));
+            ids.forEach(id -> invalidationBus.publish(CacheInvalidation.EntityType.MEMBER, id));
+        }
+    }
+
+    private void invalidate(Runnable invalidation) {
+        invalidation.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    invalidation.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,325 @@
+package study.querydsl.cache;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/*
+ * 회원 id -> MemberTeamDto 니어 캐시
+ * 수천만건을 힙에 올리면 GC 정지가 길어지므로 행은 직렬화해서 다이렉트 ByteBuffer(오프힙)에 저장하고,
+ * 인덱스는 long 배열 두개로 된 오픈 어드레싱 해시 테이블이라 GC 가 훑어야 할 객체가 거의 없다.
+ *
+ * - 저장 : 버퍼 뒤에 계속 덧붙인다. 가득 차면 살아있는 행만 앞으로 당겨서 정리하고, 그래도 모자라면 모두 비운다.
+ * - 무효화 : 회원/팀이 바뀌면 MemberTeamCacheInvalidator 가 해당 행을 지운다.
+ * - 조회 후 채우기 : stamp() 를 조회 전에 받아두고 putAll() 에 넘긴다. 그 사이 무효화가 있었으면 채우지 않는다. ( 오래된 값이 다시 들어가는 것 방지 )
+ * - 쓰기 트랜잭션 안에서는 캐시를 쓰지 않는다. ( 커밋 전 변경이 보여야 하고, 커밋 전 값을 채우면 안된다. )
+ */
+@Component
+public class MemberTeamNearCache {
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final long DELETED = Long.MIN_VALUE + 1;
+    private static final long NULL_ID = Long.MIN_VALUE;
+
+    private final boolean enabled;
+    private final ByteBuffer data;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    private long[] keys;
+    private long[] addresses;
+    private int size;
+    private int used; // size + DELETED 슬롯
+    private int writePosition;
+
+    public MemberTeamNearCache(@Value("${member.near-cache.enabled:true}") boolean enabled,
+                               @Value("${member.near-cache.capacity-bytes:67108864}") int capacityBytes) {
+        this.enabled = enabled;
+        this.data = ByteBuffer.allocateDirect(enabled ? capacityBytes : 0);
+        this.keys = new long[1024];
+        this.addresses = new long[1024];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    public MemberTeamDto get(long memberId) {
+        if (!enabled || !inReadableContext()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            int slot = findSlot(memberId);
+            return keys[slot] == memberId ? read(memberId, (int) addresses[slot]) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 캐시에 있는 회원만 반환한다.
+    public Map<Long, MemberTeamDto> getAll(Collection<Long> memberIds) {
+        Map<Long, MemberTeamDto> result = new HashMap<>();
+        if (!enabled || !inReadableContext()) {
+            return result;
+        }
+        lock.readLock().lock();
+        try {
+            for (Long memberId : memberIds) {
+                int slot = findSlot(memberId);
+                if (keys[slot] == memberId) {
+                    result.put(memberId, read(memberId, (int) addresses[slot]));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    public long stamp() {
+        return invalidations.get();
+    }
+
+    public void putAll(long stamp, Collection<MemberTeamDto> rows) {
+        if (!enabled || rows.isEmpty() || !inReadableContext()) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (invalidations.get() != stamp) {
+                return;
+            }
+            for (MemberTeamDto row : rows) {
+                if (row.getMemberId() != null) {
+                    put(row);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void invalidate(long memberId) {
+        invalidateAll(List.of(memberId));
+    }
+
+    public void invalidateAll(Collection<Long> memberIds) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            invalidations.incrementAndGet();
+            for (Long memberId : memberIds) {
+                remove(memberId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // 팀 이름이 바뀌면 그 팀 회원의 행을 모두 지운다. ( 팀 -> 회원 인덱스가 없으므로 전체를 훑는다. 팀 변경은 드물다. )
+    public void invalidateTeam(long teamId) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            invalidations.incrementAndGet();
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] != EMPTY && keys[slot] != DELETED && data.getLong((int) addresses[slot] + 8) == teamId) {
+                    keys[slot] = DELETED;
+                    size--;
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void clear() {
+        lock.writeLock().lock();
+        try {
+            invalidations.incrementAndGet();
+            Arrays.fill(keys, EMPTY);
+            size = 0;
+            used = 0;
+            writePosition = 0;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private boolean inReadableContext() {
+        return !TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly();
+    }
+
+    // 행 포맷 : [길이 int][age int][teamId long][username][teamName]  ( 문자열 : [바이트 길이 int, null = -1][UTF-8] )
+    private void put(MemberTeamDto row) {
+        byte[] username = bytes(row.getUsername());
+        byte[] teamName = bytes(row.getTeamName());
+        int length = 4 + 4 + 8 + 4 + length(username) + 4 + length(teamName);
+        if (length > data.capacity()) {
+            return;
+        }
+        if (writePosition + length > data.capacity()) {
+            compact();
+            if (writePosition + length > data.capacity()) {
+                Arrays.fill(keys, EMPTY);
+                size = 0;
+                used = 0;
+                writePosition = 0;
+            }
+        }
+
+        int address = writePosition;
+        data.putInt(address, length);
+        data.putInt(address + 4, row.getAge());
+        data.putLong(address + 8, row.getTeamId() != null ? row.getTeamId() : NULL_ID);
+        int position = writeString(address + 16, username);
+        writeString(position, teamName);
+        writePosition += length;
+
+        if ((used + 1) * 2 > keys.length) {
+            rehash(size * 2 + 2 > keys.length ? keys.length * 2 : keys.length);
+        }
+        int slot = findSlot(row.getMemberId());
+        if (keys[slot] != row.getMemberId()) {
+            slot = findInsertSlot(row.getMemberId());
+            if (keys[slot] == EMPTY) {
+                used++;
+            }
+            keys[slot] = row.getMemberId();
+            size++;
+        }
+        addresses[slot] = address;
+    }
+
+    private void remove(long memberId) {
+        int slot = findSlot(memberId);
+        if (keys[slot] == memberId) {
+            keys[slot] = DELETED;
+            size--;
+        }
+    }
+
+    private MemberTeamDto read(long memberId, int address) {
+        int age = data.getInt(address + 4);
+        long teamId = data.getLong(address + 8);
+        int position = address + 16;
+        String username = readString(position);
+        position += 4 + Math.max(0, data.getInt(position));
+        String teamName = readString(position);
+        return new MemberTeamDto(memberId, username, age, teamId == NULL_ID ? null : teamId, teamName);
+    }
+
+    // 살아있는 행을 주소 순서대로 앞으로 당긴다.
+    private void compact() {
+        List<int[]> live = new ArrayList<>(size);
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != EMPTY && keys[slot] != DELETED) {
+                live.add(new int[]{(int) addresses[slot], slot});
+            }
+        }
+        live.sort((a, b) -> Integer.compare(a[0], b[0]));
+
+        int target = 0;
+        for (int[] entry : live) {
+            int address = entry[0];
+            int length = data.getInt(address);
+            if (address != target) {
+                ByteBuffer source = data.duplicate();
+                source.position(address).limit(address + length);
+                ByteBuffer destination = data.duplicate();
+                destination.position(target);
+                destination.put(source);
+            }
+            addresses[entry[1]] = target;
+            target += length;
+        }
+        writePosition = target;
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldAddresses = addresses;
+        keys = new long[capacity];
+        addresses = new long[capacity];
+        Arrays.fill(keys, EMPTY);
+        used = size;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY && oldKeys[i] != DELETED) {
+                int slot = findInsertSlot(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                addresses[slot] = oldAddresses[i];
+            }
+        }
+    }
+
+    // 키가 있으면 그 슬롯, 없으면 EMPTY 슬롯을 반환한다.
+    private int findSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private int findInsertSlot(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != EMPTY && keys[slot] != DELETED) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    private static byte[] bytes(String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int length(byte[] bytes) {
+        return bytes == null ? 0 : bytes.length;
+    }
+
+    private int writeString(int position, byte[] bytes) {
+        if (bytes == null) {
+            data.putInt(position, -1);
+            return position + 4;
+        }
+        data.putInt(position, bytes.length);
+        data.put(position + 4, bytes);
+        return position + 4 + bytes.length;
+    }
+
+    private String readString(int position) {
+        int length = data.getInt(position);
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        data.get(position + 4, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,269 @@
+package study.querydsl.codec;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.ApproximatePage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * Page<MemberTeamDto> 를 길이 prefix 기반의 컬럼 포맷으로 인코딩/디코딩한다.
+ *
+ * [version][flags][pageNumber][pageSize][totalElements][rowCount]
+ * [팀 사전 : size, (teamId, teamName)...]
+ * [memberId 컬럼 : 이전 id 와의 차이(zigzag varint)]
+ * [username 컬럼 : 길이+1 (0 = null), UTF-8 바이트]
+ * [age 컬럼 : zigzag varint]
+ * [team 컬럼 : 사전 인덱스+1 (0 = 팀 없음)]
+ *
+ * flags 의 첫 비트는 totalElements 가 추정치인지 ( ApproximatePage ) 를 나타낸다. 버전 1 은 flags 가 없다.
+ * 팀 이름은 페이지 안에서 반복되므로 사전으로 한번만 보내고, id는 대부분 정렬되어 있어 차이값이 1바이트에 들어간다.
+ * 서버(MemberTeamPageHttpMessageConverter)와 자바 클라이언트가 같이 사용한다.
+ */
+public final class MemberTeamPageCodec {
+
+    public static final String MEDIA_TYPE = "application/x-member-team-page";
+
+    private static final int VERSION = 2;
+    private static final int VERSION_WITHOUT_FLAGS = 1;
+    private static final int FLAG_TOTAL_APPROXIMATE = 1;
+
+    private MemberTeamPageCodec() {
+    }
+
+    public static void encode(Page<MemberTeamDto> page, OutputStream out) throws IOException {
+        out.write(encode(page));
+    }
+
+    public static byte[] encode(Page<MemberTeamDto> page) {
+        List<MemberTeamDto> content = page.getContent();
+        ByteWriter out = new ByteWriter(64 + content.size() * 16);
+
+        out.writeVarLong(VERSION);
+        out.writeVarLong(page instanceof ApproximatePage ? FLAG_TOTAL_APPROXIMATE : 0);
+        out.writeVarLong(page.getPageable().isUnpaged() ? 0 : page.getNumber());
+        out.writeVarLong(page.getPageable().isUnpaged() ? 0 : page.getSize());
+        out.writeVarLong(page.getTotalElements());
+        out.writeVarLong(content.size());
+
+        // 팀 사전 (등장 순서 유지)
+        Map<TeamKey, Integer> dictionary = new LinkedHashMap<>();
+        int[] teamIndexes = new int[content.size()];
+        for (int i = 0; i < content.size(); i++) {
+            MemberTeamDto dto = content.get(i);
+            if (dto.getTeamId() == null && dto.getTeamName() == null) {
+                continue; // 0 = 팀 없음
+            }
+            teamIndexes[i] = dictionary.computeIfAbsent(
+                    new TeamKey(dto.getTeamId(), dto.getTeamName()), key -> dictionary.size() + 1);
+        }
+        out.writeVarLong(dictionary.size());
+        for (TeamKey key : dictionary.keySet()) {
+            out.writeNullableLong(key.teamId());
+            out.writeString(key.teamName());
+        }
+
+        long previousId = 0;
+        for (MemberTeamDto dto : content) {
+            long memberId = dto.getMemberId();
+            out.writeVarLong(zigzag(memberId - previousId));
+            previousId = memberId;
+        }
+        for (MemberTeamDto dto : content) {
+            out.writeString(dto.getUsername());
+        }
+        for (MemberTeamDto dto : content) {
+            out.writeVarLong(zigzag(dto.getAge()));
+        }
+        for (int teamIndex : teamIndexes) {
+            out.writeVarLong(teamIndex);
+        }
+        return out.toByteArray();
+    }
+
+    public static Page<MemberTeamDto> decode(InputStream in) throws IOException {
+        return decode(in.readAllBytes());
+    }
+
+    // 외부에서 받은 바이트이므로 길이/개수를 남은 바이트와 비교해서, 큰 배열 할당이나 배열 범위 예외 대신 IllegalArgumentException 을 던진다.
+    public static Page<MemberTeamDto> decode(byte[] bytes) {
+        ByteReader in = new ByteReader(bytes);
+        long version = in.readVarLong();
+        if (version != VERSION && version != VERSION_WITHOUT_FLAGS) {
+            throw new IllegalArgumentException("지원하지 않는 포맷 버전입니다. version = " + version);
+        }
+        long flags = version == VERSION ? in.readVarLong() : 0;
+        int pageNumber = in.readInt("pageNumber", Integer.MAX_VALUE);
+        int pageSize = in.readInt("pageSize", Integer.MAX_VALUE);
+        long total = in.readVarLong();
+        if (total < 0) {
+            throw new IllegalArgumentException("잘못된 totalElements 입니다. total = " + total);
+        }
+        int rowCount = in.readInt("rowCount", in.remaining() / 4); // 행마다 컬럼 4개, 최소 1바이트씩
+
+        int dictionarySize = in.readInt("dictionarySize", in.remaining() / 2); // 팀마다 최소 2바이트
+        Long[] teamIds = new Long[dictionarySize + 1];
+        String[] teamNames = new String[dictionarySize + 1];
+        for (int i = 1; i <= dictionarySize; i++) {
+            teamIds[i] = in.readNullableLong();
+            teamNames[i] = in.readString();
+        }
+
+        long[] memberIds = new long[rowCount];
+        long previousId = 0;
+        for (int i = 0; i < rowCount; i++) {
+            previousId += unzigzag(in.readVarLong());
+            memberIds[i] = previousId;
+        }
+        String[] usernames = new String[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            usernames[i] = in.readString();
+        }
+        int[] ages = new int[rowCount];
+        for (int i = 0; i < rowCount; i++) {
+            ages[i] = (int) unzigzag(in.readVarLong());
+        }
+
+        List<MemberTeamDto> content = new ArrayList<>(rowCount);
+        for (int i = 0; i < rowCount; i++) {
+            int teamIndex = in.readInt("teamIndex", dictionarySize);
+            content.add(new MemberTeamDto(memberIds[i], usernames[i], ages[i], teamIds[teamIndex], teamNames[teamIndex]));
+        }
+
+        Pageable pageable = pageSize > 0 ? PageRequest.of(pageNumber, pageSize) : Pageable.unpaged();
+        if ((flags & FLAG_TOTAL_APPROXIMATE) != 0) {
+            return new ApproximatePage<>(content, pageable, total);
+        }
+        return new PageImpl<>(content, pageable, total);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // ByteArrayOutputStream 은 write 마다 synchronized 라 바이트 단위 varint 쓰기에 느리다.
+    private static final class ByteWriter {
+        private byte[] buffer;
+        private int position;
+
+        ByteWriter(int capacity) {
+            this.buffer = new byte[capacity];
+        }
+
+        void writeVarLong(long value) {
+            ensureCapacity(10);
+            while ((value & ~0x7FL) != 0) {
+                buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            buffer[position++] = (byte) value;
+        }
+
+        void writeNullableLong(Long value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            writeVarLong(1);
+            writeVarLong(zigzag(value));
+        }
+
+        void writeString(String value) {
+            if (value == null) {
+                writeVarLong(0);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarLong(bytes.length + 1L);
+            ensureCapacity(bytes.length);
+            System.arraycopy(bytes, 0, buffer, position, bytes.length);
+            position += bytes.length;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, position);
+        }
+
+        private void ensureCapacity(int extra) {
+            if (position + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, position + extra));
+            }
+        }
+    }
+
+    private static final class ByteReader {
+        private final byte[] buffer;
+        private int position;
+
+        ByteReader(byte[] buffer) {
+            this.buffer = buffer;
+        }
+
+        long readVarLong() {
+            long result = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                result |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return result;
+                }
+            }
+            throw new IllegalArgumentException("잘못된 varint 입니다.");
+        }
+
+        Long readNullableLong() {
+            return readVarLong() == 0 ? null : unzigzag(readVarLong());
+        }
+
+        // 0 이상 max 이하의 값만 int 로 읽는다.
+        int readInt(String name, int max) {
+            long value = readVarLong();
+            if (value < 0 || value > max) {
+                throw new IllegalArgumentException("잘못된 " + name + " 입니다. value = " + Long.toUnsignedString(value) + ", max = " + max);
+            }
+            return (int) value;
+        }
+
+        String readString() {
+            long length = readVarLong(); // 길이+1 (0 = null)
+            if (length == 0) {
+                return null;
+            }
+            if (length < 0 || length - 1 > remaining()) {
+                throw new IllegalArgumentException("데이터가 잘렸습니다.");
+            }
+            String value = new String(buffer, position, (int) length - 1, StandardCharsets.UTF_8);
+            position += (int) length - 1;
+            return value;
+        }
+
+        int remaining() {
+            return buffer.length - position;
+        }
+
+        private int readByte() {
+            if (position >= buffer.length) {
+                throw new IllegalArgumentException("데이터가 잘렸습니다.");
+            }
+            return buffer[position++] & 0xFF;
+        }
+    }
+
+    private record TeamKey(Long teamId, String teamName) {
+    }
+}
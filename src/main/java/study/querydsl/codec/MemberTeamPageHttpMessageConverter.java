@@ -0,0 +1,41 @@
+package study.querydsl.codec;
+
+import org.springframework.data.domain.Page;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.io.IOException;
+
+// Accept: application/x-member-team-page 로 요청하면 /v2, /v3 페이지 결과를 JSON 대신 바이너리로 내려준다.
+// Accept 헤더가 없거나 */* 인 요청은 JSON 이 먼저 선택되도록 MemberTeamPageWebConfig 에서 컨버터 목록 맨 뒤에 등록한다.
+public class MemberTeamPageHttpMessageConverter extends AbstractHttpMessageConverter<Page<MemberTeamDto>> {
+
+    public MemberTeamPageHttpMessageConverter() {
+        super(MediaType.parseMediaType(MemberTeamPageCodec.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Page.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    protected Page<MemberTeamDto> readInternal(Class<? extends Page<MemberTeamDto>> clazz, HttpInputMessage inputMessage) throws IOException, HttpMessageNotReadableException {
+        return MemberTeamPageCodec.decode(inputMessage.getBody());
+    }
+
+    @Override
+    protected void writeInternal(Page<MemberTeamDto> page, HttpOutputMessage outputMessage) throws IOException, HttpMessageNotWritableException {
+        for (Object row : page.getContent()) {
+            if (!(row instanceof MemberTeamDto)) {
+                throw new HttpMessageNotWritableException("MemberTeamDto 페이지만 바이너리로 변환할 수 있습니다. type = " + row.getClass());
+            }
+        }
+        MemberTeamPageCodec.encode(page, outputMessage.getBody());
+    }
+}
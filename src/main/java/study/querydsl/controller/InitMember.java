@@ -1,25 +1,36 @@
 package study.querydsl.controller;
 
 
-import jakarta.annotation.PostConstruct;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.mapper.orm.Search;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberSearchIndexer;
 
+@Slf4j
 @Profile("local") // 프로필이 local인 경우에만 동작하는 클래스
 @Component
 @RequiredArgsConstructor
 public class InitMember {
 
     private final InitMemberService initMemberService;
-    @PostConstruct
+
+    // @PostConstruct에서 대량 데이터를 넣으면 기동이 막히므로, 기동이 끝난 뒤 별도 스레드에서 생성한다.
+    @EventListener(ApplicationReadyEvent.class)
     public void init(){
-        initMemberService.init();
+        Thread thread = new Thread(initMemberService::init, "init-member");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @Component
@@ -27,17 +38,82 @@ public class InitMember {
         @PersistenceContext
         private EntityManager em;
 
-        @Transactional // @PostConstruct와 @Transactional 은 라이프사이클 부분 문제로 같이 쓰일 수 없으므로 클래스를 분리해주어야 한다.
+        private final TransactionTemplate transactionTemplate;
+        private final MemberSearchIndexer memberSearchIndexer;
+
+        @Value("${init-member.member-count:100}")
+        private long memberCount;
+        @Value("${init-member.team-count:2}")
+        private int teamCount;
+        @Value("${init-member.batch-size:1000}")
+        private int batchSize;
+        @Value("${init-member.seed:0}")
+        private long seed;
+        @Value("${init-member.zipf-exponent:1.0}")
+        private double zipfExponent;
+        @Value("${init-member.username-collision-rate:0.01}")
+        private double usernameCollisionRate;
+
+        InitMemberService(PlatformTransactionManager transactionManager, MemberSearchIndexer memberSearchIndexer) {
+            this.transactionTemplate = new TransactionTemplate(transactionManager);
+            this.memberSearchIndexer = memberSearchIndexer;
+        }
+
+        // 데몬 스레드에서 도는 작업이므로 실패하면 어디까지 넣었는지 남겨야 부분 데이터인지 알 수 있다.
         public void init(){
-            Team teamA = new Team("teamA");
-            Team teamB = new Team("teamB");
+            long start = System.currentTimeMillis();
+            long[] inserted = new long[2]; // [0] = 팀, [1] = 회원
+            try {
+                seed(inserted);
+                // 시드 중에는 회원마다 인덱싱하지 않고, 다 넣은 뒤 한 번에 인덱스를 만든다.
+                memberSearchIndexer.rebuild();
+                log.info("init-member finished. teams={}, members={}, elapsed={}ms",
+                        teamCount, memberCount, System.currentTimeMillis() - start);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                log.warn("init-member interrupted while rebuilding search index. teams={}, members={}/{}",
+                        inserted[0], inserted[1], memberCount);
+            } catch (RuntimeException e) {
+                log.error("init-member failed. teams={}/{}, members={}/{}, elapsed={}ms",
+                        inserted[0], teamCount, inserted[1], memberCount, System.currentTimeMillis() - start, e);
+            }
+        }
 
-            em.persist(teamA);
-            em.persist(teamB);
+        private void seed(long[] inserted) {
+            MemberDataGenerator generator = new MemberDataGenerator(seed, teamCount, zipfExponent, usernameCollisionRate);
+
+            Long[] teamIds = new Long[teamCount];
+            for (int from = 0; from < teamCount; from += batchSize) {
+                int to = Math.min(teamCount, from + batchSize);
+                int chunkStart = from;
+                transactionTemplate.executeWithoutResult(status -> {
+                    for (int i = chunkStart; i < to; i++) {
+                        Team team = new Team(generator.teamName(i));
+                        em.persist(team);
+                        teamIds[i] = team.getId();
+                    }
+                });
+                inserted[0] = to;
+            }
 
-            for(int i=0;i<100;i++){
-                Team selectedTeam = i%2 ==0 ?teamA:teamB;
-                em.persist(new Member("member"+i,i,selectedTeam));
+            // 배치 단위로 트랜잭션을 끊고 영속성 컨텍스트를 비워서 메모리가 늘어나지 않게 한다.
+            for (long from = 0; from < memberCount; from += batchSize) {
+                long to = Math.min(memberCount, from + batchSize);
+                long chunkStart = from;
+                transactionTemplate.executeWithoutResult(status -> {
+                    // 회원 뷰 insert 는 MemberTeamViewUpdater 가 flush 마다 배치로 묶는다.
+                    Search.session(em).indexingPlanFilter(ctx -> ctx.exclude(Member.class));
+                    for (long i = chunkStart; i < to; i++) {
+                        MemberDataGenerator.Row row = generator.next();
+                        Member member = new Member(row.username(), row.age());
+                        // changeTeam()은 Team.members 컬렉션을 초기화하므로 프록시만 연결한다.
+                        member.setTeam(em.getReference(Team.class, teamIds[row.teamIndex()]));
+                        em.persist(member);
+                    }
+                    em.flush();
+                    em.clear();
+                });
+                inserted[1] = to;
             }
         }
     }
@@ -3,35 +3,105 @@ package study.querydsl.controller;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ProblemDetail;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.admission.RequestPriority;
+import study.querydsl.deadline.MemberDeadlines;
+import study.querydsl.dto.MemberRankDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.repository.MemberJpaRepository;
 import study.querydsl.repository.MemberRepository;
+import study.querydsl.repository.MemberTextSearchMode;
+import study.querydsl.repository.MemberWriteBehindBuffer;
+import study.querydsl.repository.UnsupportedSortException;
 
 import java.util.List;
 
+import static org.springframework.util.StringUtils.hasText;
+
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_BATCH_IDS = 10_000;
+    // 이보다 큰 요청은 비싼 요청으로 보고 낮은 우선순위로 실행한다.
+    private static final int LARGE_PAGE_SIZE = 100;
+    private static final int LARGE_BATCH_IDS = 1_000;
+
     private final MemberJpaRepository memberJpaRepository;
     private final MemberRepository memberRepository;
+    // 엔드포인트별 처리 기한 ( member.deadline ). 회원 조회 응답은 모두 비동기 ( WebAsyncTask ) 이므로 MockMvc 테스트는 asyncDispatch 가 필요하다.
+    private final MemberDeadlines deadlines;
+    private final MemberWriteBehindBuffer writeBehind; // 아직 DB에 반영되지 않은 회원 변경을 응답에 덮어쓴다. ( read-your-writes )
 
     @GetMapping("/v1/members")
-    public List<MemberTeamDto> searchMemberV1(MemberSearchCondition condition){
+    public WebAsyncTask<List<MemberTeamDto>> searchMemberV1(MemberSearchCondition condition){
         System.out.println("condition = " + condition);
-        return memberJpaRepository.search(condition);
+        return deadlines.within("/v1/members", priorityOf(condition, null), () -> writeBehind.overlay(memberJpaRepository.search(condition)));
     }
 
     @GetMapping("/v2/members")
-    public Page<MemberTeamDto> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
-        return memberRepository.searchPageSimple(condition,pageable);
+    public WebAsyncTask<Page<MemberTeamDto>> searchMemberV2(MemberSearchCondition condition, Pageable pageable){
+        return deadlines.within("/v2/members", priorityOf(condition, pageable), () -> writeBehind.overlay(memberRepository.searchPageSimple(condition,pageable)));
     }
 
     @GetMapping("/v3/members")
-    public Page<MemberTeamDto> searchMemberV3(MemberSearchCondition condition,Pageable pageable){
-        return memberRepository.searchPageComplex(condition,pageable);
+    public WebAsyncTask<Page<MemberTeamDto>> searchMemberV3(MemberSearchCondition condition,Pageable pageable){
+        return deadlines.within("/v3/members", priorityOf(condition, pageable), () -> writeBehind.overlay(memberRepository.searchPageComplex(condition,pageable)));
+    }
+
+    // 전체 건수를 보여주지 않는 무한 스크롤 클라이언트용 ( count 쿼리X )
+    @GetMapping("/v4/members")
+    public WebAsyncTask<Slice<MemberTeamDto>> searchMemberV4(MemberSearchCondition condition, Pageable pageable){
+        return deadlines.within("/v4/members", priorityOf(condition, pageable), () -> writeBehind.overlay(memberRepository.searchSlice(condition, pageable)));
+    }
+
+    // 여러 회원을 한번에 조회한다. ( /v1/members 를 username 으로 한명씩 호출하지 않도록 )
+    @GetMapping("/v1/members/batch")
+    public WebAsyncTask<List<MemberTeamDto>> findMembersV1(@RequestParam List<Long> ids){
+        if (ids.size() > MAX_BATCH_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "ids 는 최대 " + MAX_BATCH_IDS + "개까지 요청할 수 있습니다.");
+        }
+        RequestPriority priority = ids.size() > LARGE_BATCH_IDS ? RequestPriority.LOW : RequestPriority.NORMAL;
+        return deadlines.within("/v1/members/batch", priority, () -> writeBehind.overlay(memberJpaRepository.findAllByIdsAsDto(ids)));
+    }
+
+    @GetMapping("/v1/members/text")
+    public WebAsyncTask<List<MemberTeamDto>> searchMemberText(@RequestParam("q") String keyword,
+                                                              @RequestParam(defaultValue = "TOKEN") MemberTextSearchMode mode,
+                                                              @RequestParam(defaultValue = "20") int limit){
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit 는 1 이상이어야 합니다.");
+        }
+        RequestPriority priority = limit > LARGE_PAGE_SIZE ? RequestPriority.LOW : RequestPriority.NORMAL;
+        return deadlines.within("/v1/members/text", priority, () -> writeBehind.overlay(memberRepository.searchText(keyword, mode, Math.min(limit, 1000))));
+    }
+
+    // 회원별 팀 내 나이 순위와 팀 평균과의 차이 ( 상관 서브쿼리 없이 한번에 조회 )
+    @GetMapping("/v1/members/ranking")
+    public WebAsyncTask<List<MemberRankDto>> searchMemberRanking(MemberSearchCondition condition){
+        return deadlines.within("/v1/members/ranking", priorityOf(condition, null), () -> memberRepository.searchRanking(condition));
+    }
+
+    // 화이트리스트에 없거나 인덱스로 처리할 수 없는 정렬
+    @ExceptionHandler(UnsupportedSortException.class)
+    public ProblemDetail unsupportedSort(UnsupportedSortException e){
+        return ProblemDetail.forStatusAndDetail(HttpStatus.BAD_REQUEST, e.getMessage());
+    }
+
+    // 조건이 하나도 없거나 ( 전체 스캔 ) 페이지가 크면 낮은 우선순위
+    private RequestPriority priorityOf(MemberSearchCondition condition, Pageable pageable){
+        boolean noFilter = !hasText(condition.getUsername()) && !hasText(condition.getTeamName())
+                && condition.getAgeGoe() == null && condition.getAgeLoe() == null;
+        boolean largePage = pageable != null && (pageable.isUnpaged() || pageable.getPageSize() > LARGE_PAGE_SIZE);
+        return noFilter || largePage ? RequestPriority.LOW : RequestPriority.NORMAL;
     }
 }
@@ -0,0 +1,77 @@
+package study.querydsl.controller;
+
+import java.util.Random;
+
+/*
+ * 로컬 프로파일링용 회원 데이터 생성기.
+ * 같은 seed 를 주면 항상 같은 데이터가 만들어진다.
+ *
+ * - 팀 크기 : Zipf 분포 (소수의 팀에 회원이 몰린다)
+ * - 나이 : 평균 35, 표준편차 12 의 정규분포 (0 ~ 99)
+ * - 이름 : collisionRate 확률로 앞서 만든 회원 이름을 재사용한다 (동명이인)
+ */
+public class MemberDataGenerator {
+
+    private final Random random;
+    private final double[] teamCdf;
+    private final double collisionRate;
+    private long generated;
+
+    public MemberDataGenerator(long seed, int teamCount, double zipfExponent, double collisionRate) {
+        if (teamCount <= 0) {
+            throw new IllegalArgumentException("teamCount 는 1 이상이어야 합니다.");
+        }
+        this.random = new Random(seed);
+        this.teamCdf = zipfCdf(teamCount, zipfExponent);
+        this.collisionRate = collisionRate;
+    }
+
+    public int teamCount() {
+        return teamCdf.length;
+    }
+
+    public String teamName(int teamIndex) {
+        return "team" + teamIndex;
+    }
+
+    public Row next() {
+        long index = generated++;
+        long nameIndex = index > 0 && random.nextDouble() < collisionRate
+                ? (long) (random.nextDouble() * index)
+                : index;
+        int age = (int) Math.round(35 + random.nextGaussian() * 12);
+        age = Math.max(0, Math.min(99, age));
+        return new Row("member" + nameIndex, age, nextTeamIndex());
+    }
+
+    private int nextTeamIndex() {
+        double r = random.nextDouble();
+        int low = 0;
+        int high = teamCdf.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (teamCdf[mid] < r) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private static double[] zipfCdf(int n, double exponent) {
+        double[] cdf = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1.0 / Math.pow(i + 1, exponent);
+            cdf[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+        return cdf;
+    }
+
+    public record Row(String username, int age, int teamIndex) {
+    }
+}
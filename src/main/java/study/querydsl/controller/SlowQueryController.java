@@ -0,0 +1,31 @@
+package study.querydsl.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+import study.querydsl.slowquery.SlowQueryExplainer;
+import study.querydsl.slowquery.SlowQueryPlan;
+
+import java.util.List;
+
+// 느린 쿼리 실행계획 조회 ( member.slow-query )
+// 인증이 없으므로 member.slow-query.admin-endpoint=true 일 때만 등록한다. ( 내부망 / 관리 포트에서만 켠다. )
+@RestController
+@ConditionalOnProperty(name = "member.slow-query.admin-endpoint", havingValue = "true")
+@RequiredArgsConstructor
+public class SlowQueryController {
+
+    private final SlowQueryExplainer slowQueryExplainer;
+
+    @GetMapping("/admin/slow-queries")
+    public List<SlowQueryPlan> slowQueries(){
+        return slowQueryExplainer.recent();
+    }
+
+    @DeleteMapping("/admin/slow-queries")
+    public void clearSlowQueries(){
+        slowQueryExplainer.clear();
+    }
+}
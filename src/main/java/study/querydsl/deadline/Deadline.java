@@ -0,0 +1,135 @@
+package study.querydsl.deadline;
+
+import java.sql.SQLException;
+import java.sql.SQLTimeoutException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/*
+ * 요청 하나의 처리 기한
+ * 현재 스레드에 묶어두면 DeadlineDataSource 가 그 스레드에서 실행하는 모든 JDBC 문장에
+ * 남은 시간을 statement timeout 으로 걸고, 기한이 지나거나 cancel() 되면 실행중인 문장을 취소한다.
+ * ( 조건 없는 전체 스캔이 클라이언트가 떠난 뒤에도 커넥션을 붙잡고 끝까지 도는 것 방지 )
+ */
+public final class Deadline implements AutoCloseable {
+
+    private static final ThreadLocal<Deadline> CURRENT = new ThreadLocal<>();
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "deadline-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long expiresAtNanos;
+    private final Set<Statement> running = ConcurrentHashMap.newKeySet();
+    private final ScheduledFuture<?> expiry;
+    private final AtomicLong connectionWaitNanos = new AtomicLong();
+    private volatile boolean cancelled;
+
+    private Deadline(Duration timeout) {
+        this.expiresAtNanos = System.nanoTime() + timeout.toNanos();
+        // JDBC 타임아웃은 초 단위라서 기한에 맞춰 직접 취소한다.
+        this.expiry = TIMER.schedule(this::cancel, timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public static Deadline after(Duration timeout) {
+        return new Deadline(timeout);
+    }
+
+    // 현재 스레드의 기한 ( 없으면 null )
+    public static Deadline current() {
+        return CURRENT.get();
+    }
+
+    // 이 기한을 현재 스레드에 묶고 실행한다.
+    public <T> T call(Callable<T> task) throws Exception {
+        Deadline previous = CURRENT.get();
+        CURRENT.set(this);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    // 다른 스레드 ( 청크 병렬 조회 등 ) 에서도 같은 기한으로 실행되도록 감싼다.
+    public <T> Supplier<T> wrap(Supplier<T> task) {
+        return () -> {
+            Deadline previous = CURRENT.get();
+            CURRENT.set(this);
+            try {
+                return task.get();
+            } finally {
+                restore(previous);
+            }
+        };
+    }
+
+    public long remainingMillis() {
+        return Math.max(0, TimeUnit.NANOSECONDS.toMillis(expiresAtNanos - System.nanoTime()));
+    }
+
+    public boolean isExpired() {
+        return cancelled || System.nanoTime() - expiresAtNanos >= 0;
+    }
+
+    // 이 요청이 커넥션 풀에서 커넥션을 기다린 시간의 합
+    public long connectionWaitNanos() {
+        return connectionWaitNanos.get();
+    }
+
+    // 기한을 끝내고 실행중인 문장을 취소한다. ( 클라이언트 연결 끊김, 타임아웃 )
+    public void cancel() {
+        cancelled = true;
+        for (Statement statement : running) {
+            try {
+                statement.cancel();
+            } catch (SQLException | RuntimeException ignored) {
+                // 이미 끝난 문장
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        expiry.cancel(false);
+    }
+
+    void beforeExecute(Statement statement) throws SQLException {
+        running.add(statement); // 등록한 뒤에 확인해야 확인과 실행 사이의 cancel() 을 놓치지 않는다.
+        if (isExpired()) {
+            running.remove(statement);
+            throw new SQLTimeoutException("request deadline exceeded");
+        }
+        int seconds = (int) Math.max(1, (remainingMillis() + 999) / 1000);
+        int current = statement.getQueryTimeout();
+        if (current == 0 || current > seconds) {
+            statement.setQueryTimeout(seconds);
+        }
+    }
+
+    void recordConnectionWait(long nanos) {
+        connectionWaitNanos.addAndGet(nanos);
+    }
+
+    void afterExecute(Statement statement) {
+        running.remove(statement);
+    }
+
+    private static void restore(Deadline previous) {
+        if (previous != null) {
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.deadline;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(MemberDeadlineProperties.class)
+public class DeadlineConfig {
+
+    // 애플리케이션의 DataSource 를 DeadlineDataSource 로 감싼다.
+    @Bean
+    public static BeanPostProcessor deadlineDataSourcePostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource dataSource && !(bean instanceof DeadlineDataSource)
+                        ? new DeadlineDataSource(dataSource)
+                        : bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.deadline;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// 현재 스레드에 Deadline 이 있으면 execute* 호출에 남은 시간을 statement timeout 으로 걸고 취소할 수 있게 등록한다.
+// JPA ( QueryDSL, JPQL, StatelessSession ) 와 JdbcTemplate 이 모두 이 DataSource 를 거치므로 호출하는 쪽을 고칠 필요가 없다.
+public class DeadlineDataSource extends DelegatingDataSource {
+
+    public DeadlineDataSource(DataSource targetDataSource) {
+        super(targetDataSource);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection();
+        recordConnectionWait(start);
+        return proxy(connection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = super.getConnection(username, password);
+        recordConnectionWait(start);
+        return proxy(connection);
+    }
+
+    // 커넥션 풀 대기 시간은 동시 실행 한도 ( AdaptiveConcurrencyLimiter ) 를 조절하는 신호로 쓴다.
+    private static void recordConnectionWait(long start) {
+        Deadline deadline = Deadline.current();
+        if (deadline != null) {
+            deadline.recordConnectionWait(System.nanoTime() - start);
+        }
+    }
+
+    private static Connection proxy(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result = invoke(connection, method, args);
+                    return result instanceof Statement statement && isStatementFactory(method) ? proxy(statement) : result;
+                });
+    }
+
+    private static Statement proxy(Statement statement) {
+        Class<?> type = statement instanceof CallableStatement ? CallableStatement.class
+                : statement instanceof PreparedStatement ? PreparedStatement.class
+                : Statement.class;
+        InvocationHandler handler = (proxy, method, args) -> {
+            Deadline deadline = Deadline.current();
+            if (deadline == null || !method.getName().startsWith("execute")) {
+                return invoke(statement, method, args);
+            }
+            deadline.beforeExecute(statement);
+            try {
+                return invoke(statement, method, args);
+            } finally {
+                deadline.afterExecute(statement);
+            }
+        };
+        return (Statement) Proxy.newProxyInstance(DeadlineDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static boolean isStatementFactory(Method method) {
+        return method.getName().equals("createStatement")
+                || method.getName().equals("prepareStatement")
+                || method.getName().equals("prepareCall");
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getTargetException();
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package study.querydsl.deadline;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+// MemberController 엔드포인트별 처리 기한 ( member.deadline )
+@Getter @Setter
+@ConfigurationProperties("member.deadline")
+public class MemberDeadlineProperties {
+
+    private Duration defaultTimeout = Duration.ofSeconds(5);
+    // 키 : 요청 매핑 경로 ( 예: /v1/members )
+    private Map<String, Duration> endpoints = new HashMap<>();
+
+    public Duration timeoutOf(String endpoint) {
+        return endpoints.getOrDefault(endpoint, defaultTimeout);
+    }
+}
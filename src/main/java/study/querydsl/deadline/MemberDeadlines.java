@@ -0,0 +1,144 @@
+package study.querydsl.deadline;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.CannotGetJdbcConnectionException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.ErrorResponse;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.admission.AdaptiveConcurrencyLimiter;
+import study.querydsl.admission.MemberAdmissionProperties;
+import study.querydsl.admission.OverloadedException;
+import study.querydsl.admission.RequestPriority;
+
+import java.sql.SQLTransientException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/*
+ * 컨트롤러 처리를 엔드포인트별 기한 안에서 비동기로 실행한다.
+ * - 동시 실행 한도 ( AdaptiveConcurrencyLimiter ) 를 넘으면 바로 503 으로 거절한다.
+ * - 기한이 지나면 실행중인 쿼리를 취소하고 504 로 응답한다.
+ * - 클라이언트 연결이 끊기면 ( 비동기 요청의 onError ) 실행중인 쿼리를 취소해서 커넥션을 바로 돌려준다.
+ *
+ * 비동기 계약 : 반환한 WebAsyncTask 는 이 클래스의 전용 스레드 풀 ( member-request-* ) 에서 실행된다.
+ * - 스프링 기본 applicationTaskExecutor ( 8 스레드 + 무제한 큐 ) 를 쓰면 동시 실행 한도보다 적은 스레드 뒤에 요청이 보이지 않게 쌓이므로
+ *   스레드 수를 동시 실행 한도의 최대값 ( member.admission.max-limit ) 에 맞춘다.
+ *   큐는 한도를 돌려준 스레드가 아직 풀에 돌아오지 않은 짧은 순간만 받도록 같은 크기로 제한한다.
+ * - 컨트롤러가 반환하면 서블릿 스레드는 바로 풀려나고, 응답은 결과가 나온 뒤 async dispatch 로 쓴다.
+ *   필터 / 인터셉터는 REQUEST 와 ASYNC 두번 지나가고, 핸들러 안의 ThreadLocal 은 요청 스레드와 다르다.
+ * - MockMvc 테스트는 perform() 결과에서 request().asyncStarted() 를 확인하고 asyncDispatch(result) 로 다시 보내야 응답 본문을 받는다.
+ *   ( 한도 초과 503 은 비동기 시작 전에 던지므로 바로 응답된다. )
+ */
+@Component
+public class MemberDeadlines {
+
+    private final MemberDeadlineProperties properties;
+    private final MemberAdmissionProperties admissionProperties;
+    private final AdaptiveConcurrencyLimiter limiter;
+    private final ThreadPoolTaskExecutor executor;
+
+    public MemberDeadlines(MemberDeadlineProperties properties,
+                           MemberAdmissionProperties admissionProperties,
+                           AdaptiveConcurrencyLimiter limiter) {
+        this.properties = properties;
+        this.admissionProperties = admissionProperties;
+        this.limiter = limiter;
+        this.executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(admissionProperties.getMaxLimit());
+        executor.setMaxPoolSize(admissionProperties.getMaxLimit());
+        executor.setQueueCapacity(admissionProperties.getMaxLimit());
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("member-request-");
+        executor.setDaemon(true);
+        executor.initialize();
+    }
+
+    public <T> WebAsyncTask<T> within(String endpoint, Callable<T> handler) {
+        return within(endpoint, RequestPriority.NORMAL, handler);
+    }
+
+    public <T> WebAsyncTask<T> within(String endpoint, RequestPriority priority, Callable<T> handler) {
+        AdaptiveConcurrencyLimiter.Permit permit = admissionProperties.isEnabled()
+                ? limiter.tryAcquire(priority).orElseThrow(() -> new OverloadedException(endpoint))
+                : null;
+        long timeoutMillis = properties.timeoutOf(endpoint).toMillis();
+        Deadline deadline = Deadline.after(properties.timeoutOf(endpoint));
+        AtomicBoolean started = new AtomicBoolean();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        WebAsyncTask<T> task = new WebAsyncTask<>(timeoutMillis, executor, () -> {
+            started.set(true);
+            if (permit != null) {
+                permit.started();
+            }
+            boolean failed = false;
+            try {
+                return deadline.call(handler);
+            } catch (Exception | Error e) {
+                if (deadline.isExpired()) {
+                    failed = true;
+                    throw timeout(endpoint, e);
+                }
+                failed = isCongestion(e);
+                throw e;
+            } finally {
+                // 타임아웃으로 먼저 응답했어도 쿼리가 끝나서 커넥션을 돌려준 뒤에 한도를 돌려준다.
+                if (permit != null) {
+                    permit.release(deadline.connectionWaitNanos(), failed);
+                }
+            }
+        });
+        task.onTimeout(() -> {
+            timedOut.set(true);
+            deadline.cancel();
+            throw timeout(endpoint, null);
+        });
+        task.onError(() -> {
+            deadline.cancel();
+            throw new CancellationException("client disconnected: " + endpoint);
+        });
+        task.onCompletion(() -> {
+            deadline.close();
+            if (permit != null && !started.get()) {
+                // 실행되지 못하고 끝난 요청 : 큐에서 기한을 넘겼으면 혼잡, 클라이언트가 끊은 것이면 혼잡이 아니다.
+                permit.release(0, timedOut.get());
+            }
+        });
+        return task;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 요청을 실행하는 스레드 풀 ( 테스트 / 모니터링 용 )
+    ThreadPoolTaskExecutor executor() {
+        return executor;
+    }
+
+    // 한도를 줄일 실패인지 ( 혼잡 신호 ) : 쿼리 타임아웃, 일시적인 DB 오류, 커넥션을 못 받은 경우, 5xx
+    // 잘못된 요청 ( 400 등 ) 은 빨리 끝나는 정상 처리로 본다. 싸고 잘못된 요청이 몰려서 한도가 줄어들면 정상 요청까지 거절하게 된다.
+    static boolean isCongestion(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof QueryTimeoutException
+                    || cause instanceof SQLTransientException
+                    || cause instanceof CannotGetJdbcConnectionException) {
+                return true;
+            }
+            if (cause instanceof ErrorResponse response) {
+                return response.getStatusCode().is5xxServerError();
+            }
+        }
+        return false;
+    }
+
+    private ResponseStatusException timeout(String endpoint, Throwable cause) {
+        return new ResponseStatusException(HttpStatus.GATEWAY_TIMEOUT,
+                endpoint + " 처리 기한 " + properties.timeoutOf(endpoint).toMillis() + "ms 를 넘었습니다.", cause);
+    }
+}
@@ -0,0 +1,32 @@
+package study.querydsl.dto;
+
+
+import com.querydsl.core.annotations.QueryProjection;
+import lombok.Data;
+
+// 팀 안에서의 나이 순위와 팀 평균 나이와의 차이
+@Data
+public class MemberRankDto {
+
+    private Long memberId;
+    private String username;
+    private int age;
+    private Long teamId;
+    private String teamName;
+    private long teamRank; // 나이가 많은 순 ( 같은 나이는 같은 순위 )
+    private double teamAvgAge;
+    private double ageDeviation; // age - teamAvgAge
+
+    @QueryProjection
+    public MemberRankDto(Long memberId, String username, int age, Long teamId, String teamName,
+                         Long teamRank, Double teamAvgAge, Double ageDeviation) {
+        this.memberId = memberId;
+        this.username = username;
+        this.age = age;
+        this.teamId = teamId;
+        this.teamName = teamName;
+        this.teamRank = teamRank;
+        this.teamAvgAge = teamAvgAge;
+        this.ageDeviation = ageDeviation;
+    }
+}
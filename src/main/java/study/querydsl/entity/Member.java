@@ -2,20 +2,35 @@ package study.querydsl.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.Indexed;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.IndexedEmbedded;
 
 @Entity
+@EntityListeners({MemberTeamCacheInvalidator.class, MemberTeamViewUpdater.class})
+@Indexed // 전문검색 인덱스 ( 저장/수정/삭제 시 엔티티 리스너가 인덱스를 갱신한다 )
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
+@Table(indexes = { // /v2, /v3 정렬 ( MemberSortSupport ) 을 id tiebreaker 까지 인덱스 순서로 읽는다.
+        @Index(name = "idx_member_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_age", columnList = "age, member_id")
+})
 public class Member {
     @Id
     @GeneratedValue
     @Column(name = "member_id")
     private Long id;
+    @FullTextField
     private String username;
+    @Column(name = "external_id", unique = true) // 상위 시스템의 회원 키 ( MemberSnapshotSync 가 이 키로 upsert 한다. 직접 만든 회원은 null )
+    private String externalId;
     private int age;
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "team_id")
+    @IndexedEmbedded(includePaths = "name")
     private Team team;
     public Member(String username) {
         this(username, 0);
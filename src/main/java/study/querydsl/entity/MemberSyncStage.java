@@ -0,0 +1,40 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.io.Serializable;
+
+// 회원 스냅샷 동기화 ( MemberSnapshotSync ) 의 스테이징 테이블
+// 배치마다 JDBC 로 넣고 member 로 MERGE 한다. 동기화가 끝나면 sync_id 로 지우므로 JPA 로는 사용하지 않는다.
+@Entity
+@Immutable
+@IdClass(MemberSyncStage.Key.class)
+@Table(name = "member_sync_stage")
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberSyncStage {
+    @Id
+    @Column(name = "sync_id")
+    private String syncId;
+    @Id
+    @Column(name = "external_id")
+    private String externalId;
+    private String username;
+    private int age;
+    @Column(name = "team_name")
+    private String teamName;
+    @Column(name = "member_id") // 스테이징할 때 이미 있던 회원 ( null 이면 insert 대상 )
+    private Long memberId;
+
+    @Getter
+    @EqualsAndHashCode
+    @NoArgsConstructor(access = AccessLevel.PROTECTED)
+    @AllArgsConstructor
+    public static class Key implements Serializable {
+        private String syncId;
+        private String externalId;
+    }
+}
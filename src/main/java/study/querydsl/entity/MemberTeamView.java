@@ -0,0 +1,33 @@
+package study.querydsl.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+import org.hibernate.annotations.Synchronize;
+
+// 회원 검색용 읽기 모델 ( MemberTeamDto 컬럼만 비정규화해서 가진다. member - team 조인 없이 검색한다. )
+// MemberTeamViewUpdater 가 같은 트랜잭션에서 JDBC 로 갱신하므로 JPA 로는 읽기만 한다.
+// @Synchronize : 이 엔티티를 조회하기 전에 member / team 변경을 flush 해서 같은 트랜잭션의 변경이 보이게 한다.
+@Entity
+@Immutable
+@Synchronize({"member", "team"})
+@Table(name = "member_team_view", indexes = {
+        @Index(name = "idx_member_team_view_username", columnList = "username"),
+        @Index(name = "idx_member_team_view_team_name_age", columnList = "team_name, age"),
+        @Index(name = "idx_member_team_view_team_id", columnList = "team_id"),
+        @Index(name = "idx_member_team_view_age", columnList = "age")
+})
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@ToString
+public class MemberTeamView {
+    @Id
+    @Column(name = "member_id")
+    private Long memberId;
+    private String username;
+    private int age;
+    @Column(name = "team_id")
+    private Long teamId;
+    @Column(name = "team_name")
+    private String teamName;
+}
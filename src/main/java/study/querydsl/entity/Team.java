@@ -1,9 +1,13 @@
 package study.querydsl.entity;
 import jakarta.persistence.*;
 import lombok.*;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+import org.hibernate.search.mapper.pojo.mapping.definition.annotation.FullTextField;
 import java.util.ArrayList;
 import java.util.List;
 @Entity
+@EntityListeners({MemberTeamCacheInvalidator.class, MemberTeamViewUpdater.class})
 @Getter @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "name"})
@@ -12,6 +16,7 @@ public class Team {
     @GeneratedValue
     @Column(name = "team_id")
     private Long id;
+    @FullTextField // 팀 이름이 바뀌면 소속 회원 문서가 다시 인덱싱된다.
     private String name;
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
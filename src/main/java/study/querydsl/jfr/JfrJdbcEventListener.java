@@ -0,0 +1,30 @@
+package study.querydsl.jfr;
+
+import com.p6spy.engine.common.ConnectionInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+
+// p6spy 가 감싼 커넥션/스테이트먼트의 시간을 현재 리포지토리 호출 ( QueryPhases ) 에 더한다.
+// JFR 녹화 중이 아니면 QueryPhases 가 없으므로 아무것도 하지 않는다.
+@Component
+public class JfrJdbcEventListener extends SimpleJdbcEventListener {
+
+    @Override
+    public void onAfterGetConnection(ConnectionInformation connectionInformation, SQLException e) {
+        QueryPhases phases = QueryPhases.current();
+        if (phases != null) {
+            phases.connectionAcquired(connectionInformation.getTimeToGetConnectionNs());
+        }
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        QueryPhases phases = QueryPhases.current();
+        if (phases != null) {
+            phases.executed(statementInformation.getSql(), timeElapsedNanos);
+        }
+    }
+}
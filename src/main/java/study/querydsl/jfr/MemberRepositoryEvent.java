@@ -0,0 +1,52 @@
+package study.querydsl.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+// MemberJpaRepository / MemberRepository 호출 한번. 이벤트의 duration 이 호출 전체 시간이다.
+@Name("study.querydsl.MemberRepositoryCall")
+@Label("Member Repository Call")
+@Category({"QueryDSL Study", "Repository"})
+@Description("회원 리포지토리 호출 한번과 그 안에서 실행된 SQL 의 단계별 시간")
+@StackTrace(false)
+class MemberRepositoryEvent extends Event {
+
+    @Label("Method")
+    String method;
+
+    @Label("Condition Shape")
+    @Description("값을 뺀 인자 모양 ex) cond(username,ageGoe) page(20,age:DESC)")
+    String conditionShape;
+
+    @Label("SQL Hash")
+    @Description("첫번째로 실행된 SQL ( 바인딩 전 ) 의 해시. 같은 쿼리 모양이면 같은 값이다.")
+    int sqlHash;
+
+    @Label("Statements")
+    int statementCount;
+
+    @Label("Rows")
+    long rowCount;
+
+    @Label("Connection Acquire")
+    @Timespan(Timespan.NANOSECONDS)
+    long connectionAcquireTime;
+
+    @Label("Execute")
+    @Description("Statement.execute* 시간의 합")
+    @Timespan(Timespan.NANOSECONDS)
+    long executeTime;
+
+    @Label("Hydrate")
+    @Description("나머지 시간 ( ResultSet 읽기, 엔티티/DTO 생성, 쿼리 준비 )")
+    @Timespan(Timespan.NANOSECONDS)
+    long hydrateTime;
+
+    @Label("Failed")
+    boolean failed;
+}
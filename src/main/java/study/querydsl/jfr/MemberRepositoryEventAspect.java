@@ -0,0 +1,108 @@
+package study.querydsl.jfr;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+import static org.springframework.util.StringUtils.hasText;
+
+/*
+ * MemberJpaRepository, MemberRepository ( MemberRepositoryImpl 포함 ) 의 public 메소드 호출마다 MemberRepositoryEvent 를 남긴다.
+ * JFR 녹화 중이 아니거나 이벤트가 꺼져 있으면 ( src/jfr/member-repository.jfc ) 바로 호출만 한다.
+ */
+@Aspect
+@Component
+public class MemberRepositoryEventAspect {
+
+    @Around("execution(public * study.querydsl.repository.MemberJpaRepository.*(..))"
+            + " || execution(public * study.querydsl.repository.MemberRepository+.*(..))")
+    public Object record(ProceedingJoinPoint joinPoint) throws Throwable {
+        MemberRepositoryEvent event = new MemberRepositoryEvent();
+        if (!event.isEnabled()) {
+            return joinPoint.proceed();
+        }
+
+        QueryPhases phases = QueryPhases.start();
+        event.begin();
+        long start = System.nanoTime();
+        Object result = null;
+        boolean failed = true;
+        try {
+            result = joinPoint.proceed();
+            failed = false;
+            return result;
+        } finally {
+            event.end();
+            long elapsed = System.nanoTime() - start;
+            phases.end();
+            if (event.shouldCommit()) {
+                event.method = joinPoint.getSignature().getDeclaringType().getSimpleName() + "." + joinPoint.getSignature().getName();
+                event.conditionShape = shapeOf(joinPoint.getArgs());
+                event.sqlHash = phases.firstSqlHash;
+                event.statementCount = phases.statementCount;
+                event.rowCount = failed ? 0 : rowCount(result);
+                event.connectionAcquireTime = phases.connectionAcquireNanos;
+                event.executeTime = phases.executeNanos;
+                event.hydrateTime = Math.max(0, elapsed - phases.connectionAcquireNanos - phases.executeNanos);
+                event.failed = failed;
+                event.commit();
+            }
+        }
+    }
+
+    // 값은 빼고 어떤 조건이 들어왔는지만 남긴다. ( 이벤트 수가 많아도 값의 종류가 적어서 분석하기 쉽다. )
+    static String shapeOf(Object[] args) {
+        StringJoiner shape = new StringJoiner(" ");
+        for (Object arg : args) {
+            if (arg instanceof MemberSearchCondition condition) {
+                List<String> fields = new ArrayList<>(4);
+                if (hasText(condition.getUsername())) {
+                    fields.add("username");
+                }
+                if (hasText(condition.getTeamName())) {
+                    fields.add("teamName");
+                }
+                if (condition.getAgeGoe() != null) {
+                    fields.add("ageGoe");
+                }
+                if (condition.getAgeLoe() != null) {
+                    fields.add("ageLoe");
+                }
+                shape.add("cond(" + String.join(",", fields) + ")");
+            } else if (arg instanceof Pageable pageable) {
+                shape.add(pageable.isPaged()
+                        ? "page(" + pageable.getPageSize() + (pageable.getSort().isSorted() ? "," + pageable.getSort().toString().replace(": ", ":") : "") + ")"
+                        : "unpaged");
+            } else if (arg instanceof Collection<?> collection) {
+                // 크기는 2의 제곱수로 묶는다.
+                shape.add("ids(<=" + Integer.highestOneBit(Math.max(1, collection.size() - 1)) * 2 + ")");
+            } else if (arg != null) {
+                shape.add(arg.getClass().getSimpleName());
+            }
+        }
+        return shape.toString();
+    }
+
+    static long rowCount(Object result) {
+        if (result instanceof Collection<?> collection) {
+            return collection.size();
+        }
+        if (result instanceof Slice<?> slice) {
+            return slice.getNumberOfElements();
+        }
+        if (result instanceof Map<?, ?> map) {
+            return map.size();
+        }
+        return result != null ? 1 : 0;
+    }
+}
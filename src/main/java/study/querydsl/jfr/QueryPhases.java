@@ -0,0 +1,57 @@
+package study.querydsl.jfr;
+
+// 리포지토리 호출 하나 동안 현재 스레드에서 실행된 JDBC 작업을 모은다. ( JfrJdbcEventListener 가 채운다. )
+// 다른 스레드에서 실행된 쿼리 ( 병렬 청크 조회 등 ) 는 포함되지 않는다.
+final class QueryPhases {
+
+    private static final ThreadLocal<QueryPhases> CURRENT = new ThreadLocal<>();
+
+    private final QueryPhases previous;
+    long connectionAcquireNanos;
+    long executeNanos;
+    int statementCount;
+    int firstSqlHash;
+
+    private QueryPhases(QueryPhases previous) {
+        this.previous = previous;
+    }
+
+    static QueryPhases start() {
+        QueryPhases phases = new QueryPhases(CURRENT.get());
+        CURRENT.set(phases);
+        return phases;
+    }
+
+    static QueryPhases current() {
+        return CURRENT.get();
+    }
+
+    void end() {
+        if (previous != null) {
+            previous.add(this); // 리포지토리 안에서 다른 리포지토리를 호출한 경우 바깥 호출에도 더한다.
+            CURRENT.set(previous);
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    void connectionAcquired(long nanos) {
+        connectionAcquireNanos += nanos;
+    }
+
+    void executed(String sql, long nanos) {
+        if (statementCount++ == 0 && sql != null) {
+            firstSqlHash = sql.hashCode();
+        }
+        executeNanos += nanos;
+    }
+
+    private void add(QueryPhases inner) {
+        connectionAcquireNanos += inner.connectionAcquireNanos;
+        executeNanos += inner.executeNanos;
+        if (statementCount == 0) {
+            firstSqlHash = inner.firstSqlHash;
+        }
+        statementCount += inner.statementCount;
+    }
+}
@@ -0,0 +1,161 @@
+package study.querydsl.projection;
+
+import java.lang.invoke.CallSite;
+import java.lang.invoke.LambdaMetafactory;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/*
+ * DTO 클래스 하나의 생성자 / 프로퍼티 쓰기 접근자를 한번만 만들어서 재사용한다.
+ * - 생성자, setter : LambdaMetafactory 로 Supplier / BiConsumer 구현 클래스를 만든다. ( 일반 람다 호출과 같아서 JIT 가 인라인할 수 있다. )
+ * - 필드 : 람다로 만들 수 없으므로 (Object, Object)void 로 맞춘 MethodHandle 을 사용한다.
+ * 매 행마다 Method.invoke / Field.set 의 접근 검사와 인자 배열 생성을 하지 않는다.
+ */
+final class BeanAccessors<T> {
+
+    private static final ClassValue<BeanAccessors<?>> CACHE = new ClassValue<>() {
+        @Override
+        protected BeanAccessors<?> computeValue(Class<?> type) {
+            return new BeanAccessors<>(type);
+        }
+    };
+
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<T> type;
+    private final MethodHandles.Lookup lookup;
+    private final Supplier<T> constructor;
+    private final Map<String, Writer> setters = new ConcurrentHashMap<>();
+    private final Map<String, Writer> fields = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    static <T> BeanAccessors<T> of(Class<T> type) {
+        return (BeanAccessors<T>) CACHE.get(type);
+    }
+
+    private BeanAccessors(Class<T> type) {
+        this.type = type;
+        try {
+            this.lookup = MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+        } catch (IllegalAccessException e) {
+            throw new IllegalArgumentException(type.getName() + " 에 접근할 수 없습니다.", e);
+        }
+        this.constructor = createConstructor();
+    }
+
+    T newInstance() {
+        return constructor.get();
+    }
+
+    // 프로퍼티가 없으면 null ( QBean 과 같이 해당 값은 주입하지 않는다. )
+    Writer setter(String property) {
+        return setters.computeIfAbsent(property, name -> {
+            Method method = findSetter(name);
+            return method != null ? createSetter(method) : Writer.NONE;
+        }).orNull();
+    }
+
+    Writer field(String property) {
+        return fields.computeIfAbsent(property, name -> {
+            Field field = findField(name);
+            return field != null ? createFieldWriter(field) : Writer.NONE;
+        }).orNull();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Supplier<T> createConstructor() {
+        try {
+            MethodHandle target = lookup.findConstructor(type, MethodType.methodType(void.class));
+            CallSite site = LambdaMetafactory.metafactory(lookup, "get",
+                    MethodType.methodType(Supplier.class),
+                    MethodType.methodType(Object.class),
+                    target,
+                    MethodType.methodType(type));
+            return (Supplier<T>) site.getTarget().invokeExact();
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(type.getName() + " 에 기본 생성자가 없습니다.", e);
+        } catch (Throwable e) {
+            throw new IllegalStateException(type.getName() + " 생성자 접근자를 만들 수 없습니다.", e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Writer createSetter(Method method) {
+        Class<?> parameterType = method.getParameterTypes()[0];
+        try {
+            MethodHandle target = lookup.unreflect(method);
+            CallSite site = LambdaMetafactory.metafactory(lookup, "accept",
+                    MethodType.methodType(BiConsumer.class),
+                    MethodType.methodType(void.class, Object.class, Object.class),
+                    target,
+                    MethodType.methodType(void.class, type, wrap(parameterType)));
+            BiConsumer<Object, Object> setter = (BiConsumer<Object, Object>) site.getTarget().invokeExact();
+            return new Writer(parameterType, setter);
+        } catch (Throwable e) {
+            throw new IllegalStateException(type.getName() + "." + method.getName() + " 접근자를 만들 수 없습니다.", e);
+        }
+    }
+
+    private Writer createFieldWriter(Field field) {
+        try {
+            MethodHandle target = lookup.unreflectSetter(field).asType(SETTER_TYPE);
+            return new Writer(field.getType(), (bean, value) -> {
+                try {
+                    target.invokeExact(bean, value);
+                } catch (RuntimeException | Error e) {
+                    throw e;
+                } catch (Throwable e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(type.getName() + "." + field.getName() + " 접근자를 만들 수 없습니다.", e);
+        }
+    }
+
+    private Method findSetter(String property) {
+        String name = "set" + Character.toUpperCase(property.charAt(0)) + property.substring(1);
+        for (Method method : type.getMethods()) {
+            if (method.getName().equals(name) && method.getParameterCount() == 1 && !Modifier.isStatic(method.getModifiers())) {
+                return method;
+            }
+        }
+        return null;
+    }
+
+    private Field findField(String property) {
+        for (Class<?> current = type; current != null && current != Object.class; current = current.getSuperclass()) {
+            try {
+                Field field = current.getDeclaredField(property);
+                if (!Modifier.isStatic(field.getModifiers()) && !Modifier.isFinal(field.getModifiers())) {
+                    return field;
+                }
+            } catch (NoSuchFieldException ignored) {
+                // 상위 클래스에서 찾는다.
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    // 값의 타입 ( primitive 포함 ) 과 쓰기 함수
+    record Writer(Class<?> valueType, BiConsumer<Object, Object> write) {
+
+        static final Writer NONE = new Writer(null, null);
+
+        Writer orNull() {
+            return this == NONE ? null : this;
+        }
+    }
+}
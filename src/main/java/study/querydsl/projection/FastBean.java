@@ -0,0 +1,91 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.FactoryExpressionBase;
+import com.querydsl.core.types.Operation;
+import com.querydsl.core.types.Ops;
+import com.querydsl.core.types.Path;
+import com.querydsl.core.types.Visitor;
+
+import java.lang.invoke.MethodType;
+import java.util.List;
+
+/*
+ * QBean ( Projections.bean / Projections.fields ) 과 같은 규칙으로 값을 주입하는 FactoryExpression
+ * - 프로퍼티 이름은 경로 이름 ( member.username -> username ) 이고, alias 를 주면 alias 이름 ( member.username.as("name") -> name ) 이다.
+ * - DTO 에 없는 프로퍼티와 null 값은 주입하지 않는다.
+ * 접근자는 BeanAccessors 에서 DTO 클래스마다 한번만 만들고, 이 객체는 쿼리를 만들 때 프로퍼티별 접근자를 골라두기만 한다.
+ */
+public class FastBean<T> extends FactoryExpressionBase<T> {
+
+    private final List<Expression<?>> args;
+    private final boolean fieldAccess;
+    private final transient BeanAccessors<T> accessors;
+    private final transient BeanAccessors.Writer[] writers;
+
+    @SuppressWarnings("unchecked")
+    FastBean(Class<? extends T> type, boolean fieldAccess, Expression<?>... args) {
+        super(type);
+        this.args = List.of(args);
+        this.fieldAccess = fieldAccess;
+        this.accessors = (BeanAccessors<T>) BeanAccessors.of(type);
+        this.writers = new BeanAccessors.Writer[args.length];
+        for (int i = 0; i < args.length; i++) {
+            String property = propertyName(args[i]);
+            BeanAccessors.Writer writer = fieldAccess ? accessors.field(property) : accessors.setter(property);
+            if (writer != null && !wrap(writer.valueType()).isAssignableFrom(wrap(args[i].getType()))) {
+                throw new IllegalArgumentException(type.getSimpleName() + "." + property + " 의 타입 " + writer.valueType().getSimpleName()
+                        + " 에 " + args[i].getType().getSimpleName() + " 를 주입할 수 없습니다.");
+            }
+            writers[i] = writer;
+        }
+    }
+
+    private static String propertyName(Expression<?> expr) {
+        if (expr instanceof Path<?> path) {
+            return path.getMetadata().getName();
+        }
+        if (expr instanceof Operation<?> operation && operation.getOperator() == Ops.ALIAS) {
+            return ((Path<?>) operation.getArg(1)).getMetadata().getName();
+        }
+        throw new IllegalArgumentException("Unsupported expression " + expr);
+    }
+
+    private static Class<?> wrap(Class<?> type) {
+        return MethodType.methodType(type).wrap().returnType();
+    }
+
+    @Override
+    public T newInstance(Object... values) {
+        T bean = accessors.newInstance();
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            BeanAccessors.Writer writer = writers[i];
+            if (value != null && writer != null) {
+                writer.write().accept(bean, value);
+            }
+        }
+        return bean;
+    }
+
+    @Override
+    public List<Expression<?>> getArgs() {
+        return args;
+    }
+
+    @Override
+    public <R, C> R accept(Visitor<R, C> v, C context) {
+        return v.visit(this, context);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
+        return obj instanceof FastBean<?> other
+                && getType().equals(other.getType())
+                && fieldAccess == other.fieldAccess
+                && args.equals(other.args);
+    }
+}
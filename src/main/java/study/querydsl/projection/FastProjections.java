@@ -0,0 +1,26 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.Expression;
+
+/*
+ * Projections.bean / Projections.fields 를 그대로 바꿔 쓸 수 있는 프로젝션 팩토리
+ * Projections 는 매 행, 매 프로퍼티마다 리플렉션 ( Method.invoke / Field.set ) 으로 값을 주입한다.
+ * FastProjections 는 DTO 클래스마다 한번 만든 접근자 ( LambdaMetafactory / MethodHandle ) 로 주입한다.
+ *
+ * ex) queryFactory.select(FastProjections.fields(UserDto.class, member.username.as("name"), member.age))
+ */
+public final class FastProjections {
+
+    private FastProjections() {
+    }
+
+    // setter 로 주입 ( 기본 생성자 필요 )
+    public static <T> FastBean<T> bean(Class<? extends T> type, Expression<?>... exprs) {
+        return new FastBean<>(type, false, exprs);
+    }
+
+    // 필드에 직접 주입 ( private 필드도 가능, 기본 생성자 필요 )
+    public static <T> FastBean<T> fields(Class<? extends T> type, Expression<?>... exprs) {
+        return new FastBean<>(type, true, exprs);
+    }
+}
@@ -0,0 +1,66 @@
+package study.querydsl.readmodel;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/*
+ * member_team_view 와 member - team 조인 결과를 비교한다.
+ * 리스너를 타지 않는 벌크 update / delete 가 읽기 모델을 갱신하지 않았으면 여기서 드러난다.
+ */
+@Slf4j
+@Component
+public class MemberTeamViewConsistencyChecker {
+
+    private static final String MISSING =
+            " from member m where not exists (select 1 from member_team_view v where v.member_id = m.member_id)";
+    private static final String ORPHANED =
+            " from member_team_view v where not exists (select 1 from member m where m.member_id = v.member_id)";
+    private static final String MISMATCHED =
+            " from member_team_view v where exists (select 1 from member m left join team t on t.team_id = m.team_id" +
+            " where m.member_id = v.member_id and (v.username is distinct from m.username or v.age <> m.age" +
+            " or v.team_id is distinct from m.team_id or v.team_name is distinct from t.name))";
+    private static final String INSERT_MISSING =
+            "insert into member_team_view (member_id, username, age, team_id, team_name)" +
+            " select m.member_id, m.username, m.age, m.team_id, t.name from member m left join team t on t.team_id = m.team_id" +
+            " where not exists (select 1 from member_team_view v where v.member_id = m.member_id)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public MemberTeamViewConsistencyChecker(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional(readOnly = true)
+    public Report check() {
+        Report report = new Report(count(MISSING), count(ORPHANED), count(MISMATCHED));
+        if (!report.isConsistent()) {
+            log.warn("member_team_view is inconsistent. {}", report);
+        }
+        return report;
+    }
+
+    // 어긋난 행을 지우고 조인 결과로 다시 채운다.
+    @Transactional
+    public Report repair() {
+        Report before = check();
+        if (!before.isConsistent()) {
+            jdbcTemplate.update("delete" + ORPHANED);
+            jdbcTemplate.update("delete" + MISMATCHED);
+            jdbcTemplate.update(INSERT_MISSING);
+        }
+        return before;
+    }
+
+    private long count(String from) {
+        Long count = jdbcTemplate.queryForObject("select count(*)" + from, Long.class);
+        return count != null ? count : 0;
+    }
+
+    public record Report(long missing, long orphaned, long mismatched) {
+        public boolean isConsistent() {
+            return missing == 0 && orphaned == 0 && mismatched == 0;
+        }
+    }
+}
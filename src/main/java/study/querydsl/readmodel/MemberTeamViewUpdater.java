@@ -0,0 +1,189 @@
+package study.querydsl.readmodel;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.hibernate.BaseSessionEventListener;
+import org.hibernate.Hibernate;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * member_team_view 읽기 모델을 갱신하는 Member / Team 엔티티 리스너 ( 스프링 빈으로 주입받는다 )
+ * flush 할 때 같은 트랜잭션 ( 같은 커넥션 ) 에서 JDBC 로 반영하므로 롤백하면 읽기 모델도 같이 롤백된다.
+ * - 새 회원 ( @PostPersist ) 은 모아두었다가 flush 가 끝날 때 JDBC 배치 insert 한번으로 넣는다. ( 대량 저장 시 회원마다 왕복하지 않는다. )
+ * - 수정된 회원 ( @PostUpdate ) 만 update 한다. 새 팀은 읽기 모델에 행이 있을 수 없으므로 아무것도 하지 않는다.
+ * 벌크 update / JDBC 수정은 리스너를 타지 않으므로 호출하는 쪽에서 moveToTeam() 등을 직접 호출한다.
+ */
+@Component
+public class MemberTeamViewUpdater {
+
+    // 팀 프록시가 초기화되지 않았으면 ( 이름이 바뀌었을 수 없으므로 ) DB의 팀 이름을 그대로 쓴다.
+    private static final String UPDATE_MEMBER_SQL =
+            "update member_team_view set username = ?, age = ?, team_id = ?," +
+            " team_name = coalesce(?, (select t.name from team t where t.team_id = ?)) where member_id = ?";
+    private static final String INSERT_MEMBER_SQL =
+            "insert into member_team_view (member_id, username, age, team_id, team_name)" +
+            " values (?, ?, ?, ?, coalesce(?, (select t.name from team t where t.team_id = ?)))";
+    private static final String DELETE_MEMBER_SQL = "delete from member_team_view where member_id = ?";
+    private static final String RENAME_TEAM_SQL = "update member_team_view set team_name = ? where team_id = ?";
+    private static final String REMOVE_TEAM_SQL = "update member_team_view set team_id = null, team_name = null where team_id = ?";
+    private static final String MOVE_TO_TEAM_SQL =
+            "update member_team_view set team_id = ?, team_name = (select t.name from team t where t.team_id = ?) where member_id = ?";
+    private static final String UPDATE_ATTRIBUTES_SQL =
+            "update member_team_view set age = coalesce(?, age), username = coalesce(?, username) where member_id = ?";
+    private static final String REFRESH_MEMBER_SQL =
+            "merge into member_team_view v using (select m.member_id, m.username, m.age, m.team_id, t.name team_name" +
+            " from member m left join team t on t.team_id = m.team_id where m.member_id = ?) s on v.member_id = s.member_id" +
+            " when matched then update set username = s.username, age = s.age, team_id = s.team_id, team_name = s.team_name" +
+            " when not matched then insert (member_id, username, age, team_id, team_name)" +
+            " values (s.member_id, s.username, s.age, s.team_id, s.team_name)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager em;
+
+    // 엔티티 리스너는 EntityManagerFactory 를 만들 때 필요하므로 EntityManager 는 지연 주입한다.
+    public MemberTeamViewUpdater(JdbcTemplate jdbcTemplate, @Lazy EntityManager em) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.em = em;
+    }
+
+    @PostPersist
+    public void onPersist(Object entity) {
+        if (entity instanceof Member member) {
+            Object[] row = insertArgs(member);
+            PendingInserts pending = pendingInserts();
+            if (pending != null) {
+                pending.rows.put(member.getId(), row);
+            } else {
+                jdbcTemplate.update(INSERT_MEMBER_SQL, row);
+            }
+        }
+    }
+
+    @PostUpdate
+    public void onUpdate(Object entity) {
+        if (entity instanceof Member member) {
+            upsert(member);
+        } else if (entity instanceof Team team) {
+            jdbcTemplate.update(RENAME_TEAM_SQL, team.getName(), team.getId());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        if (entity instanceof Member member) {
+            PendingInserts pending = currentPendingInserts();
+            if (pending != null && pending.rows.remove(member.getId()) != null) {
+                return; // 같은 flush 에서 저장하고 삭제한 회원
+            }
+            jdbcTemplate.update(DELETE_MEMBER_SQL, member.getId());
+        } else if (entity instanceof Team team) {
+            jdbcTemplate.update(REMOVE_TEAM_SQL, team.getId());
+        }
+    }
+
+    // 벌크 update 로 팀을 옮긴 회원
+    public void moveToTeam(Collection<Long> memberIds, Long teamId) {
+        List<Object[]> args = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            args.add(new Object[]{teamId, teamId, memberId});
+        }
+        jdbcTemplate.batchUpdate(MOVE_TO_TEAM_SQL, args);
+    }
+
+    // JDBC 로 바꾼 회원 속성 ( null 인 속성은 변경하지 않는다. ) - {age, username, memberId}
+    public void updateAttributes(List<Object[]> ageUsernameMemberId) {
+        jdbcTemplate.batchUpdate(UPDATE_ATTRIBUTES_SQL, ageUsernameMemberId);
+    }
+
+    // JDBC 로 insert / update 한 회원 ( member 테이블의 현재 값으로 다시 만든다. )
+    public void refresh(Collection<Long> memberIds) {
+        List<Object[]> args = new ArrayList<>(memberIds.size());
+        for (Long memberId : memberIds) {
+            args.add(new Object[]{memberId});
+        }
+        jdbcTemplate.batchUpdate(REFRESH_MEMBER_SQL, args);
+    }
+
+    // 읽기 모델에 행이 없는 회원 ( 읽기 모델을 만들기 전에 저장된 회원 등 ) 이면 insert 한다.
+    private void upsert(Member member) {
+        Team team = member.getTeam();
+        Long teamId = team != null ? team.getId() : null;
+        String teamName = team != null && Hibernate.isInitialized(team) ? team.getName() : null;
+        int updated = jdbcTemplate.update(UPDATE_MEMBER_SQL,
+                member.getUsername(), member.getAge(), teamId, teamName, teamId, member.getId());
+        if (updated == 0) {
+            jdbcTemplate.update(INSERT_MEMBER_SQL, insertArgs(member));
+        }
+    }
+
+    private static Object[] insertArgs(Member member) {
+        Team team = member.getTeam();
+        Long teamId = team != null ? team.getId() : null;
+        String teamName = team != null && Hibernate.isInitialized(team) ? team.getName() : null;
+        return new Object[]{member.getId(), member.getUsername(), member.getAge(), teamId, teamName, teamId};
+    }
+
+    private PendingInserts currentPendingInserts() {
+        return TransactionSynchronizationManager.isSynchronizationActive()
+                ? (PendingInserts) TransactionSynchronizationManager.getResource(this)
+                : null;
+    }
+
+    // 트랜잭션마다 하나. 세션의 flush 가 끝날 때 모인 insert 를 실행한다. ( 트랜잭션 밖이면 null )
+    private PendingInserts pendingInserts() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        PendingInserts pending = currentPendingInserts();
+        if (pending == null) {
+            pending = new PendingInserts();
+            em.unwrap(SessionImplementor.class).addEventListeners(pending);
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(MemberTeamViewUpdater.this);
+                }
+            });
+        }
+        return pending;
+    }
+
+    private final class PendingInserts extends BaseSessionEventListener {
+
+        private final Map<Long, Object[]> rows = new LinkedHashMap<>();
+
+        @Override
+        public void flushEnd(int numberOfEntities, int numberOfCollections) {
+            insertAll();
+        }
+
+        @Override
+        public void partialFlushEnd(int numberOfEntities, int numberOfCollections) { // 쿼리 전 auto flush
+            insertAll();
+        }
+
+        private void insertAll() {
+            if (!rows.isEmpty()) {
+                List<Object[]> batch = new ArrayList<>(rows.values());
+                rows.clear();
+                jdbcTemplate.batchUpdate(INSERT_MEMBER_SQL, batch);
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package study.querydsl.repository;
+
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+
+// totalElements 가 count 쿼리가 아니라 통계로 추정한 값인 페이지 ( 응답 JSON 에 "totalApproximate": true 가 추가된다. )
+public class ApproximatePage<T> extends PageImpl<T> {
+
+    public ApproximatePage(List<T> content, Pageable pageable, long estimatedTotal) {
+        super(content, pageable, estimatedTotal);
+    }
+
+    public boolean isTotalApproximate() {
+        return true;
+    }
+}
@@ -0,0 +1,180 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.Tuple;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.LongSupplier;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 페이지 조회의 count(*) 대신 사용할 회원 수 추정기
+ * 팀 이름 x 나이 구간(10살 단위) 별 회원 수를 주기적으로 집계해두고, 검색 조건에 해당하는 구간의 합으로 전체 건수를 추정한다.
+ * 추정치가 threshold 이상일 때만 추정치를 쓰고, 작은 결과는 정확한 count 쿼리를 그대로 사용한다.
+ * username 조건은 통계로 추정할 수 없으므로 항상 정확하게 센다.
+ */
+@Slf4j
+@Component
+public class MemberCountEstimator {
+
+    private static final int AGE_BUCKET = 10;
+
+    private final JPAQueryFactory queryFactory;
+    private final boolean enabled;
+    private final long threshold;
+    private final long refreshIntervalMillis;
+
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+    // 통계 집계 전용 스레드 ( 공용 ForkJoinPool 에서 DB 조회를 하지 않는다. )
+    private final ExecutorService refresher;
+    private volatile Statistics statistics;
+
+    public MemberCountEstimator(EntityManager em,
+                                @Value("${member.count.estimate.enabled:true}") boolean enabled,
+                                @Value("${member.count.estimate.threshold:100000}") long threshold,
+                                @Value("${member.count.estimate.refresh-interval-ms:60000}") long refreshIntervalMillis) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.enabled = enabled;
+        this.threshold = threshold;
+        this.refreshIntervalMillis = refreshIntervalMillis;
+        this.refresher = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "member-count-estimator");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // 추정치가 threshold 이상이면 추정치를 반환한다. 통계가 없거나 작은 결과면 비어있다.
+    public OptionalLong estimateIfLarge(MemberSearchCondition condition) {
+        if (!enabled) {
+            return OptionalLong.empty();
+        }
+        OptionalLong estimate = estimate(condition);
+        return estimate.isPresent() && estimate.getAsLong() >= threshold ? estimate : OptionalLong.empty();
+    }
+
+    // PageableExecutionUtils.getPage 와 같지만 결과가 크면 count 쿼리 대신 추정치를 사용한다.
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, MemberSearchCondition condition, LongSupplier exactCount) {
+        if (!isTotalKnown(content, pageable)) {
+            return getPage(content, pageable, estimateIfLarge(condition), exactCount);
+        }
+        return PageableExecutionUtils.getPage(content, pageable, exactCount);
+    }
+
+    // 호출하는 쪽에서 이미 estimateIfLarge 를 구했으면 그 값을 그대로 쓴다. ( 통계를 두번 계산하지 않는다. )
+    public <T> Page<T> getPage(List<T> content, Pageable pageable, OptionalLong estimate, LongSupplier exactCount) {
+        if (!isTotalKnown(content, pageable) && estimate.isPresent()) {
+            return new ApproximatePage<>(content, pageable, estimate.getAsLong());
+        }
+        return PageableExecutionUtils.getPage(content, pageable, exactCount);
+    }
+
+    // 첫 페이지가 다 차지 않았거나 마지막 페이지면 컨텐츠만으로 전체 건수를 안다.
+    private static boolean isTotalKnown(List<?> content, Pageable pageable) {
+        return pageable.isUnpaged()
+                || (content.size() < pageable.getPageSize() && (pageable.getOffset() == 0 || !content.isEmpty()));
+    }
+
+    public OptionalLong estimate(MemberSearchCondition condition) {
+        Statistics current = statistics;
+        if (current == null || System.currentTimeMillis() - current.collectedAt() > refreshIntervalMillis) {
+            refreshAsync();
+        }
+        if (current == null || hasText(condition.getUsername())) {
+            return OptionalLong.empty();
+        }
+
+        int ageGoe = condition.getAgeGoe() != null ? condition.getAgeGoe() : Integer.MIN_VALUE;
+        int ageLoe = condition.getAgeLoe() != null ? condition.getAgeLoe() : Integer.MAX_VALUE;
+        double estimate = 0;
+        for (Map.Entry<String, Map<Integer, Long>> teamEntry : current.counts().entrySet()) {
+            if (hasText(condition.getTeamName()) && !condition.getTeamName().equals(teamEntry.getKey())) {
+                continue;
+            }
+            for (Map.Entry<Integer, Long> bucket : teamEntry.getValue().entrySet()) {
+                estimate += bucket.getValue() * overlap(bucket.getKey(), ageGoe, ageLoe);
+            }
+        }
+        return OptionalLong.of(Math.round(estimate));
+    }
+
+    // 나이 구간 중 조건에 걸치는 비율 ( 구간 안에서는 균등하게 분포한다고 가정 )
+    private static double overlap(int bucket, int ageGoe, int ageLoe) {
+        long from = (long) bucket * AGE_BUCKET;
+        long to = from + AGE_BUCKET - 1;
+        long overlapFrom = Math.max(from, ageGoe);
+        long overlapTo = Math.min(to, ageLoe);
+        return overlapFrom > overlapTo ? 0 : (double) (overlapTo - overlapFrom + 1) / AGE_BUCKET;
+    }
+
+    private void refreshAsync() {
+        if (refreshing.compareAndSet(false, true)) {
+            try {
+                refresher.execute(() -> {
+                    try {
+                        refresh();
+                    } catch (RuntimeException e) {
+                        log.warn("member count statistics refresh failed", e);
+                    } finally {
+                        refreshing.set(false);
+                    }
+                });
+            } catch (RejectedExecutionException e) { // 종료 중이면 지금 통계를 그대로 사용한다.
+                refreshing.set(false);
+            }
+        }
+    }
+
+    // 팀 이름 x 나이 구간 별 회원 수 집계 ( 팀이 없는 회원은 null 팀으로 센다. )
+    public void refresh() {
+        NumberExpression<Integer> ageBucket = Expressions.numberTemplate(Integer.class, "floor({0} / " + AGE_BUCKET + ")", member.age);
+        List<Tuple> rows = queryFactory
+                .select(team.name, ageBucket, member.count())
+                .from(member)
+                .leftJoin(member.team, team)
+                .groupBy(team.name, ageBucket)
+                .fetch();
+
+        Map<String, Map<Integer, Long>> counts = new HashMap<>();
+        for (Tuple row : rows) {
+            counts.computeIfAbsent(row.get(team.name), name -> new HashMap<>())
+                    .merge(((Number) row.toArray()[1]).intValue(), row.get(member.count()), Long::sum);
+        }
+        statistics = new Statistics(counts, System.currentTimeMillis());
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        refresher.shutdown();
+        try {
+            refresher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Statistics(Map<String, Map<Integer, Long>> counts, long collectedAt) {
+    }
+}
@@ -5,31 +5,79 @@ import com.querydsl.core.BooleanBuilder;
 import com.querydsl.core.types.Predicate;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.Cache;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.engine.spi.PersistenceContext;
+import org.hibernate.engine.spi.SessionImplementor;
+import org.hibernate.persister.entity.EntityPersister;
 import org.springframework.beans.support.PagedListHolder;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.cache.MemberTeamNearCache;
+import study.querydsl.deadline.Deadline;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import static com.querydsl.core.types.dsl.Expressions.as;
 import static org.springframework.util.StringUtils.*;
 import static study.querydsl.entity.QMember.*;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.ReadOnlyQuerySupport.readOnly;
 
 @Repository
 @RequiredArgsConstructor
 public class MemberJpaRepository {
 
+    // IN 절 파라미터 개수 상한 ( 2의 제곱수로 맞춰서 in_clause_parameter_padding 이 만드는 쿼리 모양 수를 줄인다. )
+    private static final int IN_CHUNK_SIZE = 512;
+    private static final String TEAM_MEMBERS_ROLE = Team.class.getName() + ".members";
+    // 청크가 이보다 많으면 여러 커넥션으로 나누어 병렬 조회한다.
+    private static final int PARALLEL_CHUNK_THRESHOLD = 4;
+    private static final int PARALLELISM = 4;
+
     private final EntityManager em; // 스프링은 엔티티매니저에 프록시 가짜를 주입한다. 트랜잭션단위로 바인딩되도록 한다.그래서 멀티스레드 환경에서도 작업이 가능하다.
     private final JPAQueryFactory queryFactory;
+    private final MemberSearchIndexer memberSearchIndexer;
+    private final MemberTeamNearCache nearCache;
+    private final MemberTeamCacheInvalidator cacheInvalidator;
+    private final MemberTeamViewRepository memberTeamViewRepository;
+    private final MemberTeamViewUpdater memberTeamViewUpdater;
+    private final ExecutorService chunkExecutor = Executors.newFixedThreadPool(PARALLELISM, new CustomizableThreadFactory("member-chunk-"));
+
+    @PreDestroy
+    public void shutdown(){
+        chunkExecutor.shutdown();
+    }
 
     public void save(Member member){
         em.persist(member);
@@ -44,9 +92,10 @@ public class MemberJpaRepository {
         return em.createQuery("SELECT m FROM Member m",Member.class).getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findAll_QueryDSL(){
-        return queryFactory
-                .selectFrom(member)
+        return readOnly(queryFactory
+                .selectFrom(member))
                 .fetch();
     }
 
@@ -56,14 +105,18 @@ public class MemberJpaRepository {
                 .getResultList();
     }
 
+    @Transactional(readOnly = true)
     public List<Member> findByUsername_QueryDsl(String username){
-        return queryFactory
+        return readOnly(queryFactory
                 .selectFrom(member)
-                .where(member.username.eq(username)) // Setparameter 없어도 자동으로 파라미터 등록을 함
+                .where(member.username.eq(username))) // Setparameter 없어도 자동으로 파라미터 등록을 함
                 .fetch();
     }
 
     public List<MemberTeamDto> searchByBuilder(MemberSearchCondition condition){
+        if (memberTeamViewRepository.isEnabled()) {
+            return memberTeamViewRepository.search(condition);
+        }
 
         BooleanBuilder builder = new BooleanBuilder();
         if (hasText(condition.getUsername())) {
@@ -92,7 +145,13 @@ public class MemberJpaRepository {
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return queryFactory
+        long stamp = nearCache.stamp();
+        if (memberTeamViewRepository.isEnabled()) {
+            List<MemberTeamDto> result = memberTeamViewRepository.search(condition);
+            nearCache.putAll(stamp, result);
+            return result;
+        }
+        List<MemberTeamDto> result = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -107,18 +166,203 @@ public class MemberJpaRepository {
                         ageBetween(condition.getAgeLoe(),condition.getAgeGoe())
                 )
                 .fetch();
+        nearCache.putAll(stamp, result);
+        return result;
     }
 
 
-    public List<Member> searchMember(MemberSearchCondition condition){
+    // 수천개의 id 를 IN 청크로 나누어 조회하고, 요청한 id 순서대로 반환한다. ( 없는 id 는 건너뛴다. )
+    // 트랜잭션 안에서 호출하면 아직 커밋하지 않은 데이터도 보여야 하므로 병렬로 나누지 않는다.
+    // 니어 캐시에 있는 회원은 조회하지 않고, 조회한 회원은 캐시에 채운다.
+    public List<MemberTeamDto> findAllByIdsAsDto(Collection<Long> ids){
+        List<Long> distinctIds = ids.stream().filter(Objects::nonNull).distinct().toList();
+        long stamp = nearCache.stamp();
+        Map<Long, MemberTeamDto> rows = new HashMap<>(distinctIds.size() * 2);
+        rows.putAll(nearCache.getAll(distinctIds));
+        List<Long> missingIds = distinctIds.stream().filter(id -> !rows.containsKey(id)).toList();
+        List<List<Long>> chunks = new ArrayList<>();
+        for (int from = 0; from < missingIds.size(); from += IN_CHUNK_SIZE) {
+            chunks.add(missingIds.subList(from, Math.min(missingIds.size(), from + IN_CHUNK_SIZE)));
+        }
+
+        if (chunks.size() > PARALLEL_CHUNK_THRESHOLD && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            Deadline deadline = Deadline.current(); // 요청 처리 기한을 청크 조회 스레드에도 건다.
+            List<Future<List<MemberTeamDto>>> futures = chunks.stream()
+                    .map(chunk -> {
+                        Supplier<List<MemberTeamDto>> query = () -> findChunkAsDto(chunk);
+                        Supplier<List<MemberTeamDto>> task = deadline != null ? deadline.wrap(query) : query;
+                        return chunkExecutor.submit(task::get);
+                    })
+                    .toList();
+            for (Future<List<MemberTeamDto>> future : futures) {
+                joinChunk(future, futures).forEach(dto -> rows.put(dto.getMemberId(), dto));
+            }
+        } else {
+            for (List<Long> chunk : chunks) {
+                findChunkAsDto(chunk).forEach(dto -> rows.put(dto.getMemberId(), dto));
+            }
+        }
+        if (!missingIds.isEmpty()) {
+            nearCache.putAll(stamp, missingIds.stream().map(rows::get).filter(Objects::nonNull).toList());
+        }
+
+        return distinctIds.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // 한 청크가 실패하면 나머지 청크를 취소하고 ( 커넥션 반환 ) 원래 예외를 던진다. ( 스프링 예외 변환이 적용되도록 )
+    private List<MemberTeamDto> joinChunk(Future<List<MemberTeamDto>> future, List<Future<List<MemberTeamDto>>> futures){
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 청크 조회 대기 중 인터럽트", e);
+        }
+    }
+
+    private List<MemberTeamDto> findChunkAsDto(List<Long> chunk){
         return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(member.id.in(chunk))
+                .fetch();
+    }
+
+    // 여러 회원을 한 팀으로 옮기고, 실제로 팀이 바뀐 회원 수를 돌려준다. Member.changeTeam()은 Team.members 컬렉션을 초기화하므로 대량 이동에는 이 메소드를 사용한다.
+    // - 영속성 컨텍스트에 로딩된 회원은 team 필드를 바꿔서 변경감지로 옮긴다. ( 벌크 update 로 옮기면 엔티티와 DB가 달라진다. )
+    //   요청한 id 마다 EntityKey 로 찾으므로 영속성 컨텍스트 전체를 훑지 않는다.
+    // - 나머지 회원은 IN 청크 단위 벌크 update 로 옮긴다. ( 이미 대상 팀인 회원은 update 하지 않는다. )
+    // - 이미 초기화된 Team.members 컬렉션만 메모리에서 맞춰주고, 초기화되지 않은 컬렉션은 로딩하지 않는다.
+    @Transactional
+    public long moveToTeam(Collection<Long> memberIds, Long targetTeamId){
+        Set<Long> ids = memberIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        Team target = em.getReference(Team.class, targetTeamId);
+        SessionImplementor session = em.unwrap(SessionImplementor.class);
+        PersistenceContext persistenceContext = session.getPersistenceContextInternal();
+        EntityPersister memberPersister = session.getFactory().getMappingMetamodel().getEntityDescriptor(Member.class);
+
+        List<Member> managedMembers = new ArrayList<>();
+        List<Long> bulkIds = new ArrayList<>();
+        for (Long id : ids) {
+            if (persistenceContext.getEntity(session.generateEntityKey(id, memberPersister)) instanceof Member m) {
+                managedMembers.add(m);
+            } else {
+                bulkIds.add(id);
+            }
+        }
+
+        long moved = 0;
+        for (Member m : managedMembers) {
+            if (m.getTeam() == null || !targetTeamId.equals(m.getTeam().getId())) {
+                m.setTeam(target);
+                moved++;
+            }
+        }
+        for (int from = 0; from < bulkIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> chunk = bulkIds.subList(from, Math.min(bulkIds.size(), from + IN_CHUNK_SIZE));
+            moved += queryFactory
+                    .update(member)
+                    .set(member.team, target)
+                    .where(member.id.in(chunk), member.team.id.ne(targetTeamId).or(member.team.isNull()))
+                    .execute();
+        }
+
+        // 초기화된 Team.members 컬렉션은 영속성 컨텍스트의 컬렉션 엔트리 중에서만 찾는다. ( 순회가 끝난 뒤에 고친다. )
+        List<Team> loadedTeams = new ArrayList<>();
+        persistenceContext.forEachCollectionEntry((collection, entry) -> {
+            if (collection.wasInitialized() && TEAM_MEMBERS_ROLE.equals(collection.getRole())
+                    && collection.getOwner() instanceof Team t) {
+                loadedTeams.add(t);
+            }
+        }, false);
+        for (Team t : loadedTeams) {
+            if (t.getId().equals(targetTeamId)) {
+                addMovedMembers(t, managedMembers, bulkIds);
+            } else {
+                t.getMembers().removeIf(m -> ids.contains(m.getId()));
+            }
+        }
+
+        memberTeamViewUpdater.moveToTeam(bulkIds, targetTeamId);
+        evictCaches(ids);
+        reindexAfterCommit(bulkIds);
+        return moved;
+    }
+
+    // 대상 팀 컬렉션이 이미 초기화되어 있으면 옮겨진 회원을 프록시로 추가한다. ( 옮겨진 회원 외에는 로딩하지 않는다. )
+    private void addMovedMembers(Team target, List<Member> managedMembers, List<Long> bulkIds){
+        Set<Long> existing = target.getMembers().stream().map(Member::getId).collect(Collectors.toSet());
+        for (Member m : managedMembers) {
+            if (existing.add(m.getId())) {
+                target.getMembers().add(m);
+            }
+        }
+        for (int from = 0; from < bulkIds.size(); from += IN_CHUNK_SIZE) {
+            List<Long> movedIds = queryFactory
+                    .select(member.id)
+                    .from(member)
+                    .where(member.team.id.eq(target.getId()), member.id.in(bulkIds.subList(from, Math.min(bulkIds.size(), from + IN_CHUNK_SIZE))))
+                    .fetch();
+            for (Long id : movedIds) {
+                if (existing.add(id)) {
+                    target.getMembers().add(em.getReference(Member.class, id));
+                }
+            }
+        }
+    }
+
+    private void evictCaches(Collection<Long> ids){
+        Cache cache = em.getEntityManagerFactory().getCache();
+        ids.forEach(id -> cache.evict(Member.class, id));
+        em.getEntityManagerFactory().unwrap(SessionFactory.class).getCache()
+                .evictCollectionData(Team.class.getName() + ".members");
+        cacheInvalidator.invalidateMembers(ids);
+    }
+
+    // 벌크 update 는 전문검색 인덱스 ( team.name ) 에 반영되지 않으므로 커밋 후 옮겨진 회원만 다시 인덱싱한다.
+    private void reindexAfterCommit(List<Long> bulkIds){
+        if (bulkIds.isEmpty() || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                memberSearchIndexer.reindex(bulkIds);
+            }
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public List<Member> searchMember(MemberSearchCondition condition){
+        return readOnly(queryFactory
                 .selectFrom(member)
                 .leftJoin(member.team, team)
                 .where(
                         usernameEq(condition.getUsername()), // 재사용 가능
                         teamNameEq(condition.getTeamName()),
                         ageBetween(condition.getAgeLoe(),condition.getAgeGoe())
-                )
+                ))
                 .fetch();
     }
 
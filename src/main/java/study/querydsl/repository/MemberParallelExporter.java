@@ -0,0 +1,147 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import study.querydsl.deadline.Deadline;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 전체 회원 익스포트/리포트용 병렬 스캔
+ * member_id 순서로 rangeSize 명씩 구간을 나누고, 구간마다 별도 커넥션에서 동시에 조회한다.
+ * 결과는 구간 순서대로 ( member_id 오름차순 ) 콜백에 넘긴다.
+ * 구간 경계는 실제 id 로 정한다. ( 키셋 : 직전 경계 다음부터 rangeSize 번째 id )
+ * 시퀀스가 50씩 건너뛰거나 ( member_seq 를 직접 쓰는 MemberSnapshotSync ) 삭제로 id 가 듬성듬성해도 구간마다 회원 수가 일정하다.
+ *
+ * - 동시에 조회하는 구간은 parallelism 개, 메모리에 올라와 있는 구간은 최대 parallelism * 2 개로 제한한다.
+ * - 각 구간은 트랜잭션 밖에서 조회하므로 호출한 쪽의 트랜잭션에서 아직 커밋하지 않은 데이터는 보이지 않는다.
+ * - 호출한 스레드에 처리 기한 ( Deadline ) 이 걸려 있으면 구간 조회에도 같은 기한을 건다.
+ * - 한 구간이 실패하면 ( 콜백 예외 포함 ) 나머지 구간을 Future.cancel(true) 로 인터럽트해서 커넥션을 돌려받는다.
+ */
+@Component
+public class MemberParallelExporter {
+
+    private final JPAQueryFactory queryFactory;
+    private final ExecutorService executor;
+    private final int parallelism;
+    private final long rangeSize;
+
+    public MemberParallelExporter(JPAQueryFactory queryFactory,
+                                  @Value("${member.export.parallelism:4}") int parallelism,
+                                  @Value("${member.export.range-size:10000}") long rangeSize) {
+        if (parallelism <= 0 || rangeSize <= 0) {
+            throw new IllegalArgumentException("parallelism, rangeSize 는 1 이상이어야 합니다.");
+        }
+        this.queryFactory = queryFactory;
+        this.parallelism = parallelism;
+        this.rangeSize = rangeSize;
+        this.executor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("member-export-"));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+
+    // 구간 하나의 조회 결과를 순서대로 넘긴다. ( 조건에 맞는 회원이 없는 구간은 건너뛴다. ) 반환값은 전체 건수
+    public long export(MemberSearchCondition condition, Consumer<List<MemberTeamDto>> callback) {
+        Deadline deadline = Deadline.current();
+        int window = parallelism * 2;
+        Deque<Future<List<MemberTeamDto>>> inFlight = new ArrayDeque<>(window);
+        long count = 0;
+        try {
+            Long after = null; // 직전 구간의 마지막 id ( null = 처음 )
+            boolean last = false;
+            while (!last) {
+                Long toId = boundaryAfter(after);
+                last = toId == null;
+                Long fromId = after;
+                Supplier<List<MemberTeamDto>> query = () -> scanRange(condition, fromId, toId);
+                Callable<List<MemberTeamDto>> task = (deadline != null ? deadline.wrap(query) : query)::get;
+                inFlight.addLast(executor.submit(task));
+                if (inFlight.size() == window) {
+                    count += emit(inFlight.removeFirst(), callback);
+                }
+                after = toId;
+            }
+            while (!inFlight.isEmpty()) {
+                count += emit(inFlight.removeFirst(), callback);
+            }
+            return count;
+        } catch (RuntimeException | Error e) {
+            inFlight.forEach(f -> f.cancel(true));
+            throw e;
+        }
+    }
+
+    // after 다음부터 rangeSize 번째 id. 남은 회원이 rangeSize 명 이하면 null ( 마지막 구간 )
+    // PK 인덱스만 읽으므로 구간 조회보다 훨씬 가볍다.
+    private Long boundaryAfter(Long after) {
+        return queryFactory
+                .select(member.id)
+                .from(member)
+                .where(after != null ? member.id.gt(after) : null)
+                .orderBy(member.id.asc())
+                .offset(rangeSize - 1)
+                .limit(1)
+                .fetchFirst();
+    }
+
+    private long emit(Future<List<MemberTeamDto>> future, Consumer<List<MemberTeamDto>> callback) {
+        List<MemberTeamDto> rows;
+        try {
+            rows = future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error cause) {
+                throw cause;
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("회원 익스포트 구간 조회 대기 중 인터럽트", e);
+        }
+        if (!rows.isEmpty()) {
+            callback.accept(rows);
+        }
+        return rows.size();
+    }
+
+    // fromId 초과 ~ toId 이하 구간 ( null 이면 그쪽 끝은 열려있다. ) PK 범위 조건이라 구간마다 인덱스 범위 스캔이 된다.
+    private List<MemberTeamDto> scanRange(MemberSearchCondition condition, Long fromId, Long toId) {
+        return queryFactory
+                .select(new QMemberTeamDto(
+                        member.id.as("memberId"),
+                        member.username,
+                        member.age,
+                        team.id.as("teamId"),
+                        team.name.as("teamName")))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(fromId != null ? member.id.gt(fromId) : null,
+                        toId != null ? member.id.loe(toId) : null)
+                .where(MemberSearchPredicates.of(condition))
+                .orderBy(member.id.asc())
+                .fetch();
+    }
+}
@@ -19,12 +19,17 @@ import static study.querydsl.entity.QTeam.team;
 public class MemberQueryRepository {
 
     private final JPAQueryFactory queryFactory;
+    private final MemberTeamViewRepository memberTeamViewRepository;
 
-    public MemberQueryRepository(EntityManager entityManager){
+    public MemberQueryRepository(EntityManager entityManager, MemberTeamViewRepository memberTeamViewRepository){
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.memberTeamViewRepository = memberTeamViewRepository;
     }
 
     public List<MemberTeamDto> search(MemberSearchCondition condition){
+        if (memberTeamViewRepository.isEnabled()) {
+            return memberTeamViewRepository.search(condition);
+        }
         return queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -2,6 +2,8 @@ package study.querydsl.repository;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import study.querydsl.dto.MemberRankDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 
@@ -13,4 +15,10 @@ public interface MemberRepositoryCustom {
     List<MemberTeamDto> search(MemberSearchCondition condition);
     Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable);
     Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition,Pageable pageable);
+    // 전체 건수가 필요없는 무한 스크롤용 ( count 쿼리X, pageSize + 1 개를 조회해서 다음 페이지 여부만 알려준다. )
+    Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable);
+    // 회원 이름 / 팀 이름 전문검색 ( Lucene ), 연관도 순으로 반환한다.
+    List<MemberTeamDto> searchText(String keyword, MemberTextSearchMode mode, int limit);
+    // 팀 안에서의 나이 순위와 팀 평균 나이와의 차이 ( 윈도우 함수, 팀 / 순위 순으로 반환한다. )
+    List<MemberRankDto> searchRanking(MemberSearchCondition condition);
 }
@@ -2,35 +2,74 @@ package study.querydsl.repository;
 
 import com.querydsl.core.QueryResults;
 import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.impl.JPAQuery;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
+import org.hibernate.search.engine.search.predicate.dsl.PredicateFinalStep;
+import org.hibernate.search.engine.search.predicate.dsl.SearchPredicateFactory;
+import org.hibernate.search.mapper.orm.Search;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
-import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberTeamNearCache;
+import study.querydsl.dto.MemberRankDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberRankDto;
 import study.querydsl.dto.QMemberTeamDto;
 import study.querydsl.entity.Member;
+import study.querydsl.repository.WindowFunctions.Window;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.OptionalLong;
 
 import static org.springframework.util.StringUtils.hasText;
 import static study.querydsl.entity.QMember.member;
 import static study.querydsl.entity.QTeam.team;
+import static study.querydsl.repository.ReadOnlyQuerySupport.readOnly;
 
 public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
+    private final EntityManager entityManager;
     private final JPAQueryFactory queryFactory;
+    private final MemberCountEstimator memberCountEstimator;
+    private final MemberTeamNearCache nearCache; // 조회한 행으로 회원 id 니어 캐시를 채운다.
+    private final MemberTeamViewRepository memberTeamViewRepository; // 켜져 있으면 조인 대신 읽기 모델을 검색한다.
+    private final MemberTeamSqlRepository memberTeamSqlRepository; // 켜져 있으면 QueryDSL 대신 네이티브 SQL 로 검색한다.
 
-    public MemberRepositoryImpl(EntityManager entityManager){
+    public MemberRepositoryImpl(EntityManager entityManager, MemberCountEstimator memberCountEstimator,
+                                MemberTeamNearCache nearCache, MemberTeamViewRepository memberTeamViewRepository,
+                                MemberTeamSqlRepository memberTeamSqlRepository){
+        this.entityManager = entityManager;
         this.queryFactory = new JPAQueryFactory(entityManager);
+        this.memberCountEstimator = memberCountEstimator;
+        this.nearCache = nearCache;
+        this.memberTeamViewRepository = memberTeamViewRepository;
+        this.memberTeamSqlRepository = memberTeamSqlRepository;
     }
 
     @Override
     public List<MemberTeamDto> search(MemberSearchCondition condition){
-        return queryFactory
+        long stamp = nearCache.stamp();
+        if (memberTeamViewRepository.isEnabled()) {
+            List<MemberTeamDto> result = memberTeamViewRepository.search(condition);
+            nearCache.putAll(stamp, result);
+            return result;
+        }
+        if (memberTeamSqlRepository.isEnabled()) {
+            List<MemberTeamDto> result = memberTeamSqlRepository.search(condition);
+            nearCache.putAll(stamp, result);
+            return result;
+        }
+        List<MemberTeamDto> result = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -45,11 +84,20 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         ageBetween(condition.getAgeLoe(),condition.getAgeGoe())
                 )
                 .fetch();
+        nearCache.putAll(stamp, result);
+        return result;
     }
 
     @Override
     public Page<MemberTeamDto> searchPageSimple(MemberSearchCondition condition, Pageable pageable) {
-        QueryResults<MemberTeamDto> results = queryFactory
+        if (memberTeamViewRepository.isEnabled()) {
+            return searchPageFromView(condition, pageable);
+        }
+        if (memberTeamSqlRepository.isEnabled()) {
+            return searchPageBySql(condition, pageable);
+        }
+        long stamp = nearCache.stamp();
+        JPAQuery<MemberTeamDto> query = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
                         member.username,
@@ -63,18 +111,36 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())                )
+                .orderBy(MemberSortSupport.orderBy(pageable.getSort(), condition))
                 .offset(pageable.getOffset())
-                .limit(pageable.getPageSize())
-                .fetchResults();// Fetch 쿼리 + 카운트 쿼리 둘다 날림
+                .limit(pageable.getPageSize());
+
+        // 결과가 매우 크면 count(*) 가 컨텐츠 조회보다 비싸므로 통계로 추정한 전체 건수를 사용한다.
+        OptionalLong estimate = memberCountEstimator.estimateIfLarge(condition);
+        if (estimate.isPresent()) {
+            List<MemberTeamDto> content = query.fetch();
+            nearCache.putAll(stamp, content);
+            return memberCountEstimator.getPage(content, pageable, estimate, query::fetchCount);
+        }
+
+        QueryResults<MemberTeamDto> results = query.fetchResults();// Fetch 쿼리 + 카운트 쿼리 둘다 날림
 
         List<MemberTeamDto> content = results.getResults();
         long total = results.getTotal();
+        nearCache.putAll(stamp, content);
 
         return new PageImpl<>(content,pageable,total);
     }
 
     @Override
     public Page<MemberTeamDto> searchPageComplex(MemberSearchCondition condition, Pageable pageable) {
+        if (memberTeamViewRepository.isEnabled()) {
+            return searchPageFromView(condition, pageable);
+        }
+        if (memberTeamSqlRepository.isEnabled()) {
+            return searchPageBySql(condition, pageable);
+        }
+        long stamp = nearCache.stamp();
         List<MemberTeamDto> content = queryFactory
                 .select(new QMemberTeamDto(
                         member.id.as("memberId"),
@@ -89,9 +155,11 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())                )
+                .orderBy(MemberSortSupport.orderBy(pageable.getSort(), condition))
                 .offset(pageable.getOffset())
                 .limit(pageable.getPageSize())
                 .fetch();
+        nearCache.putAll(stamp, content);
         //카운트 쿼리를 최적화하고 싶으면 별도로 분리를 해야한다.
         //데이터가 많아서 성능최적화가 필요한 경우 카운트와 컨텐츠를 분리하는 것이 좋다.
         JPAQuery<Member> countQuery = queryFactory
@@ -107,12 +175,155 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
 
         // 카운트 쿼리를 람다로 넘기면, 첫페이지인데 컨텐츠 크기가 페이지 개수보다 작거나, 마지막 페이지인 경우 카운트 쿼리를 날리지 않는다.
         // 데이터를 100개 요청했는데 실제 데이터가 80개이면 하나의 페이지로 모두 가져오니 Total 쿼리를 추가로 날릴 필요가 없다.
-        return PageableExecutionUtils.getPage(content,pageable, countQuery::fetchCount);
+        // 결과가 매우 크면 카운트 쿼리 대신 통계로 추정한 전체 건수를 사용한다. ( ApproximatePage )
+        return memberCountEstimator.getPage(content,pageable, condition, countQuery::fetchCount);
+    }
+
+
+    // count 쿼리 없이 pageSize + 1 개를 조회해서 마지막 한건으로 다음 페이지 여부를 판단한다.
+    @Override
+    public Slice<MemberTeamDto> searchSlice(MemberSearchCondition condition, Pageable pageable) {
+        long stamp = nearCache.stamp();
+        int limit = pageable.getPageSize() + 1;
+        List<MemberTeamDto> content;
+        if (memberTeamViewRepository.isEnabled()) {
+            content = memberTeamViewRepository.searchContent(condition, pageable, limit);
+        } else if (memberTeamSqlRepository.isEnabled()) {
+            content = memberTeamSqlRepository.searchContent(condition, pageable, limit);
+        } else {
+            content = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(
+                            usernameEq(condition.getUsername()),
+                            teamNameEq(condition.getTeamName()),
+                            ageGoe(condition.getAgeGoe()),
+                            ageLoe(condition.getAgeLoe()))
+                    .orderBy(MemberSortSupport.orderBy(pageable.getSort(), condition))
+                    .offset(pageable.getOffset())
+                    .limit(limit)
+                    .fetch();
+        }
+
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        nearCache.putAll(stamp, content);
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    // 읽기 모델은 컨텐츠와 카운트 모두 조인이 없으므로 Simple / Complex 를 구분하지 않는다.
+    private Page<MemberTeamDto> searchPageFromView(MemberSearchCondition condition, Pageable pageable) {
+        long stamp = nearCache.stamp();
+        List<MemberTeamDto> content = memberTeamViewRepository.searchContent(condition, pageable);
+        nearCache.putAll(stamp, content);
+        return memberCountEstimator.getPage(content, pageable, condition, () -> memberTeamViewRepository.count(condition));
     }
 
+    // 네이티브 SQL 도 카운트를 따로 실행하므로 Simple / Complex 를 구분하지 않는다.
+    private Page<MemberTeamDto> searchPageBySql(MemberSearchCondition condition, Pageable pageable) {
+        long stamp = nearCache.stamp();
+        List<MemberTeamDto> content = memberTeamSqlRepository.searchContent(condition, pageable);
+        nearCache.putAll(stamp, content);
+        return memberCountEstimator.getPage(content, pageable, condition, () -> memberTeamSqlRepository.count(condition));
+    }
+
+    // LIKE 검색 대신 Lucene 인덱스에서 연관도 순으로 id만 가져오고, DTO는 id IN 조회로 채운다.
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberTeamDto> searchText(String keyword, MemberTextSearchMode mode, int limit) {
+        if (!hasText(keyword)) {
+            return List.of();
+        }
+        List<Long> ids = Search.session(entityManager)
+                .search(Member.class)
+                .select(f -> f.id(Long.class))
+                .where(f -> textPredicate(f, keyword.trim(), mode))
+                .fetchHits(limit);
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        // 니어 캐시에 없는 회원만 DB에서 읽는다.
+        long stamp = nearCache.stamp();
+        Map<Long, MemberTeamDto> rows = new HashMap<>(nearCache.getAll(ids));
+        List<Long> missingIds = ids.stream().filter(id -> !rows.containsKey(id)).toList();
+        if (!missingIds.isEmpty()) {
+            List<MemberTeamDto> loaded = queryFactory
+                    .select(new QMemberTeamDto(
+                            member.id.as("memberId"),
+                            member.username,
+                            member.age,
+                            team.id.as("teamId"),
+                            team.name.as("teamName")))
+                    .from(member)
+                    .leftJoin(member.team, team)
+                    .where(member.id.in(missingIds))
+                    .fetch();
+            nearCache.putAll(stamp, loaded);
+            loaded.forEach(dto -> rows.put(dto.getMemberId(), dto));
+        }
 
+        // 인덱스의 순위를 유지하고, 인덱스에는 남아있지만 DB에서 지워진 회원은 건너뛴다.
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    // 회원 이름이 팀 이름보다 연관도가 높도록 가중치를 준다.
+    private PredicateFinalStep textPredicate(SearchPredicateFactory f, String keyword, MemberTextSearchMode mode) {
+        return switch (mode) {
+            case TOKEN -> f.match()
+                    .field("username").boost(2.0f)
+                    .field("team.name")
+                    .matching(keyword);
+            case FUZZY -> f.match()
+                    .field("username").boost(2.0f)
+                    .field("team.name")
+                    .matching(keyword)
+                    .fuzzy(2);
+            case PREFIX -> f.wildcard()
+                    .field("username").boost(2.0f)
+                    .field("team.name")
+                    .matching(keyword.toLowerCase().replaceAll("([*?\\\\])", "\\\\$1") + "*");
+        };
+    }
+
+    // 팀 평균 나이를 회원마다 상관 서브쿼리로 구하지 않고 윈도우 함수로 한번의 스캔에서 순위 / 평균을 같이 계산한다.
+    // 윈도우 함수는 where 이후에 계산되므로 순위와 평균은 검색 조건에 맞는 회원들 안에서의 값이다.
+    @Override
+    public List<MemberRankDto> searchRanking(MemberSearchCondition condition) {
+        Window byTeam = Window.partitionBy(member.team.id);
+        NumberExpression<Double> teamAvgAge = WindowFunctions.avg(member.age, byTeam);
+        NumberExpression<Long> teamRank = WindowFunctions.rank(byTeam.orderBy(member.age.desc()));
+        return readOnly(queryFactory
+                .select(new QMemberRankDto(
+                        member.id,
+                        member.username,
+                        member.age,
+                        team.id,
+                        team.name,
+                        teamRank,
+                        teamAvgAge,
+                        Expressions.numberTemplate(Double.class, "{0} - {1}", member.age, teamAvgAge)))
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(MemberSearchPredicates.of(condition))
+                .orderBy(team.id.asc().nullsLast(), teamRank.asc(), member.id.asc()))
+                .fetch();
+    }
+
+    @Transactional(readOnly = true)
     public List<Member> searchMember(MemberSearchCondition condition){
-        return queryFactory
+        return readOnly(queryFactory
                 .selectFrom(member)
                 .leftJoin(member.team, team)
                 .where(
@@ -120,7 +331,7 @@ public class MemberRepositoryImpl implements MemberRepositoryCustom{
                         teamNameEq(condition.getTeamName()),
                         ageGoe(condition.getAgeGoe()),
                         ageLoe(condition.getAgeLoe())
-                )
+                ))
                 .fetch();
     }
 
@@ -0,0 +1,103 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.JPQLSerializer;
+import com.querydsl.jpa.JPQLTemplates;
+import com.querydsl.jpa.impl.JPAQuery;
+import com.querydsl.jpa.impl.JPAUtil;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.ScrollMode;
+import org.hibernate.ScrollableResults;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.hibernate.query.Query;
+import org.springframework.stereotype.Component;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * 전체 회원을 순회하는 배치/리포트용 API
+ * findAll()은 모든 회원을 하나의 영속성 컨텍스트에 올리므로 수백만건이면 메모리가 부족하다.
+ * StatelessSession 은 1차 캐시, 스냅샷, 지연로딩이 없으므로 FORWARD_ONLY 커서로 읽으면 메모리가 일정하게 유지된다.
+ * 트랜잭션과 커넥션을 따로 사용하므로 호출한 쪽의 트랜잭션에서 아직 커밋하지 않은 데이터는 보이지 않는다.
+ */
+@Component
+@RequiredArgsConstructor
+public class MemberScanner {
+
+    private static final int DEFAULT_FETCH_SIZE = 1000;
+
+    private final EntityManagerFactory emf;
+
+    public long scan(MemberSearchCondition condition, Consumer<Member> callback) {
+        return scan(condition, DEFAULT_FETCH_SIZE, callback);
+    }
+
+    // 한 건씩 콜백을 호출한다. 콜백이 받은 Member는 StatelessSession 에서 분리된 객체이며 team 은 페치조인으로 채워져 있다.
+    public long scan(MemberSearchCondition condition, int fetchSize, Consumer<Member> callback) {
+        StatelessSession session = emf.unwrap(SessionFactory.class).openStatelessSession();
+        try (session) {
+            Transaction tx = session.beginTransaction();
+            try (ScrollableResults<Member> results = createQuery(session, condition, fetchSize).scroll(ScrollMode.FORWARD_ONLY)) {
+                long count = 0;
+                while (results.next()) {
+                    callback.accept(results.get());
+                    count++;
+                }
+                tx.commit();
+                return count;
+            } catch (RuntimeException e) {
+                tx.rollback();
+                throw e;
+            }
+        }
+    }
+
+    // chunkSize 건씩 모아서 콜백을 호출한다. 콜백이 끝나면 리스트는 재사용되므로 보관하려면 복사해야 한다.
+    public long scanChunks(MemberSearchCondition condition, int chunkSize, Consumer<List<Member>> callback) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize 는 1 이상이어야 합니다.");
+        }
+        List<Member> chunk = new ArrayList<>(chunkSize);
+        List<Member> view = Collections.unmodifiableList(chunk);
+        long count = scan(condition, chunkSize, m -> {
+            chunk.add(m);
+            if (chunk.size() == chunkSize) {
+                callback.accept(view);
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            callback.accept(view);
+        }
+        return count;
+    }
+
+    // QueryDSL 로 조건을 조립하고 JPQL 로 직렬화해서 StatelessSession 에서 실행한다.
+    private Query<Member> createQuery(StatelessSession session, MemberSearchCondition condition, int fetchSize) {
+        JPAQuery<Member> query = new JPAQuery<Member>()
+                .select(member)
+                .from(member)
+                .leftJoin(member.team, team).fetchJoin()
+                .where(MemberSearchPredicates.of(condition))
+                .orderBy(member.id.asc());
+
+        JPQLSerializer serializer = new JPQLSerializer(JPQLTemplates.DEFAULT);
+        serializer.serialize(query.getMetadata(), false, null);
+
+        Query<Member> hqlQuery = session.createQuery(serializer.toString(), Member.class);
+        JPAUtil.setConstants(hqlQuery, serializer.getConstants(), query.getMetadata().getParams());
+        hqlQuery.setFetchSize(fetchSize);
+        hqlQuery.setReadOnly(true);
+        return hqlQuery;
+    }
+}
@@ -0,0 +1,63 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.session.SearchSession;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.stereotype.Component;
+import study.querydsl.entity.Member;
+
+import java.util.Collection;
+import java.util.List;
+
+// 벌크 연산( update/delete 쿼리 )이나 외부에서 바꾼 데이터는 엔티티 리스너를 거치지 않으므로 인덱스를 통째로 다시 만든다.
+@Component
+@RequiredArgsConstructor
+public class MemberSearchIndexer {
+
+    private static final int THREADS_TO_LOAD_OBJECTS = 4;
+    private static final int BATCH_SIZE_TO_LOAD_OBJECTS = 500;
+
+    private final EntityManagerFactory emf;
+
+    // 벌크 update 로 바뀐 회원만 다시 인덱싱한다. ( 청크마다 영속성 컨텍스트를 비워서 메모리를 일정하게 유지 )
+    public void reindex(Collection<Long> memberIds) {
+        List<Long> ids = List.copyOf(memberIds);
+        EntityManager em = emf.createEntityManager();
+        try {
+            em.getTransaction().begin();
+            SearchIndexingPlan indexingPlan = Search.session(em).indexingPlan();
+            for (int from = 0; from < ids.size(); from += BATCH_SIZE_TO_LOAD_OBJECTS) {
+                em.createQuery("SELECT m FROM Member m LEFT JOIN FETCH m.team WHERE m.id IN :ids", Member.class)
+                        .setParameter("ids", ids.subList(from, Math.min(ids.size(), from + BATCH_SIZE_TO_LOAD_OBJECTS)))
+                        .getResultList()
+                        .forEach(indexingPlan::addOrUpdate);
+                indexingPlan.process();
+                em.clear();
+            }
+            em.getTransaction().commit();
+        } catch (RuntimeException e) {
+            if (em.getTransaction().isActive()) {
+                em.getTransaction().rollback();
+            }
+            throw e;
+        } finally {
+            em.close();
+        }
+    }
+
+    public void rebuild() throws InterruptedException {
+        EntityManager em = emf.createEntityManager();
+        try {
+            SearchSession searchSession = Search.session(em);
+            searchSession.massIndexer(Member.class)
+                    .threadsToLoadObjects(THREADS_TO_LOAD_OBJECTS)
+                    .batchSizeToLoadObjects(BATCH_SIZE_TO_LOAD_OBJECTS)
+                    .startAndWait();
+        } finally {
+            em.close();
+        }
+    }
+}
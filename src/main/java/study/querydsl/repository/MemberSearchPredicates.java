@@ -0,0 +1,45 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import study.querydsl.dto.MemberSearchCondition;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// MemberRepositoryImpl 의 검색 조건을 리포지토리 밖의 쿼리 ( 스캔, 익스포트 등 ) 에서도 재사용하기 위한 조립용 메소드
+// teamName 조건은 member.team 을 team 별칭으로 조인한 쿼리에서만 사용할 수 있다.
+final class MemberSearchPredicates {
+
+    private MemberSearchPredicates() {
+    }
+
+    static Predicate[] of(MemberSearchCondition condition) {
+        if (condition == null) {
+            return new Predicate[0];
+        }
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    static BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? member.age.loe(ageLoe) : null;
+    }
+
+    static BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? member.age.goe(ageGoe) : null;
+    }
+
+    static BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? team.name.eq(teamName) : null;
+    }
+
+    static BooleanExpression usernameEq(String username) {
+        return hasText(username) ? member.username.eq(username) : null;
+    }
+}
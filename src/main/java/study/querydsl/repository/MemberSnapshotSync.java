@@ -0,0 +1,179 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.entity.Member;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/*
+ * 상위 시스템이 보내는 회원 스냅샷을 member 에 upsert 한다. ( 회원 키 : member.external_id )
+ * 회원마다 findByExternalId + save 를 하지 않고, 배치마다 두번만 DB에 다녀온다.
+ *   1. 배치를 member_sync_stage 에 JDBC 배치로 넣는다. ( 이때 이미 있던 회원 id 를 같이 적어둔다. )
+ *   2. member_sync_stage -> member 로 MERGE 하고, 바뀐 회원만 돌려받는다. ( select ... from final table (merge ...) )
+ *      data change delta table ( final table ) 은 H2 / DB2 문법이다. 다른 DB 는 MERGE_SQL 을 바꿔야 한다. ( PostgreSQL 은 merge ... returning 등 )
+ * 값이 같은 회원은 update 하지 않으므로 같은 스냅샷을 다시 보내도 아무것도 바뀌지 않는다. ( unchanged 로 센다. )
+ *
+ * - 팀은 이름으로 찾는다. teamName 이 null 이면 팀에서 빼고, 없는 팀 이름이면 지금 팀을 그대로 둔다. ( 새 회원은 팀 없음 )
+ *   MERGE 안에서 team 을 조회해서 team_id 를 채우므로 없는 팀을 가리키는 외래키는 만들지 않는다.
+ * - 배치마다 트랜잭션을 따로 건다. 실패한 배치는 롤백되고 앞서 끝난 배치는 남는다. ( 다시 보내면 이어서 맞춰진다. )
+ * - 새 회원 id 는 member_seq 에서 직접 받는다. 시퀀스가 50씩 증가하므로 새 회원마다 id 가 50씩 벌어지지만
+ *   Hibernate ( pooled ) 가 받아가는 id 구간과는 겹치지 않는다.
+ * JDBC 로 직접 반영하므로 영속성 컨텍스트에 올라와 있는 Member 에는 반영되지 않는다. ( 니어 캐시, 읽기 모델, 전문검색 인덱스는 직접 갱신한다. )
+ */
+@Slf4j
+@Component
+public class MemberSnapshotSync {
+
+    private static final String STAGE_SQL =
+            "insert into member_sync_stage (sync_id, external_id, username, age, team_name, member_id)" +
+            " values (?, ?, ?, ?, ?, (select m.member_id from member m where m.external_id = ?))";
+
+    // H2 / DB2 전용 : final table ( MERGE 가 바꾼 행을 select 로 돌려받는다. ) 과 merge ... when matched and 조건
+    // x.team_id : teamName 으로 찾은 팀 ( 없으면 null ) / 바꿀 팀 : teamName 이 null 이면 null, 못 찾으면 지금 팀
+    private static final String MERGE_SQL = """
+            select n.member_id, s.member_id
+            from final table (
+                merge into member m
+                using (select s.external_id, s.username, s.age, s.team_name,
+                              (select min(t.team_id) from team t where t.name = s.team_name) team_id
+                       from member_sync_stage s
+                       where s.sync_id = ?) x
+                on m.external_id = x.external_id
+                when matched and (m.username is distinct from x.username or m.age <> x.age
+                        or m.team_id is distinct from case when x.team_name is null then null else coalesce(x.team_id, m.team_id) end)
+                    then update set username = x.username, age = x.age,
+                        team_id = case when x.team_name is null then null else coalesce(x.team_id, m.team_id) end
+                when not matched
+                    then insert (member_id, external_id, username, age, team_id)
+                    values (next value for member_seq, x.external_id, x.username, x.age, x.team_id)
+            ) n
+            join member_sync_stage s on s.sync_id = ? and s.external_id = n.external_id""";
+
+    private static final String CLEAR_STAGE_SQL = "delete from member_sync_stage where sync_id = ?";
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberTeamCacheInvalidator cacheInvalidator;
+    private final MemberTeamViewUpdater memberTeamViewUpdater;
+    private final int batchSize;
+
+    public MemberSnapshotSync(EntityManager em,
+                              JdbcTemplate jdbcTemplate,
+                              PlatformTransactionManager transactionManager,
+                              MemberTeamCacheInvalidator cacheInvalidator,
+                              MemberTeamViewUpdater memberTeamViewUpdater,
+                              @Value("${member.sync.batch-size:1000}") int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize 는 1 이상이어야 합니다.");
+        }
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheInvalidator = cacheInvalidator;
+        this.memberTeamViewUpdater = memberTeamViewUpdater;
+        this.batchSize = batchSize;
+    }
+
+    // 같은 externalId 가 여러번 있으면 마지막 행을 사용한다.
+    public Result sync(Collection<Row> snapshot) {
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (Row row : snapshot) {
+            if (row.externalId() == null) {
+                throw new IllegalArgumentException("externalId 가 없는 회원은 동기화할 수 없습니다. " + row);
+            }
+            rows.remove(row.externalId());
+            rows.put(row.externalId(), row);
+        }
+
+        String syncId = UUID.randomUUID().toString();
+        List<Row> distinct = new ArrayList<>(rows.values());
+        Result result = Result.EMPTY;
+        try {
+            for (int from = 0; from < distinct.size(); from += batchSize) {
+                List<Row> batch = distinct.subList(from, Math.min(distinct.size(), from + batchSize));
+                result = result.plus(transactionTemplate.execute(status -> syncBatch(syncId, batch)));
+            }
+        } catch (RuntimeException | Error e) {
+            // 정리 실패가 원래 예외를 가리지 않게 한다.
+            try {
+                clearStage(syncId);
+            } catch (RuntimeException cleanup) {
+                e.addSuppressed(cleanup);
+            }
+            throw e;
+        }
+        // 동기화는 끝났으므로 정리에 실패해도 결과를 돌려준다. ( 남은 stage 행은 sync_id 가 달라서 다음 동기화에 섞이지 않는다. )
+        try {
+            clearStage(syncId);
+        } catch (RuntimeException e) {
+            log.warn("member sync stage cleanup failed. syncId={}", syncId, e);
+        }
+        return result;
+    }
+
+    private void clearStage(String syncId) {
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(CLEAR_STAGE_SQL, syncId));
+    }
+
+    private Result syncBatch(String syncId, List<Row> batch) {
+        em.flush(); // 같은 트랜잭션에서 아직 반영하지 않은 팀 / 회원도 보이게 한다.
+        jdbcTemplate.batchUpdate(STAGE_SQL, batch, batch.size(), (ps, row) -> {
+            ps.setString(1, syncId);
+            ps.setString(2, row.externalId());
+            ps.setString(3, row.username());
+            ps.setInt(4, row.age());
+            ps.setString(5, row.teamName());
+            ps.setString(6, row.externalId());
+        });
+
+        List<Long> changed = new ArrayList<>();
+        long[] inserted = {0};
+        jdbcTemplate.query(MERGE_SQL, rs -> {
+            changed.add(rs.getLong(1));
+            if (rs.getObject(2) == null) {
+                inserted[0]++;
+            }
+        }, syncId, syncId);
+
+        if (!changed.isEmpty()) {
+            memberTeamViewUpdater.refresh(changed);
+            SearchIndexingPlan indexingPlan = Search.session(em).indexingPlan();
+            em.createQuery("SELECT m FROM Member m LEFT JOIN FETCH m.team WHERE m.id IN :ids", Member.class)
+                    .setParameter("ids", changed)
+                    .getResultList()
+                    .forEach(indexingPlan::addOrUpdate);
+            cacheInvalidator.invalidateMembers(changed);
+        }
+        long updated = changed.size() - inserted[0];
+        return new Result(inserted[0], updated, batch.size() - changed.size());
+    }
+
+    // teamName : 소속 팀 이름 ( null 이면 팀 없음 )
+    public record Row(String externalId, String username, int age, String teamName) {
+    }
+
+    public record Result(long inserted, long updated, long unchanged) {
+
+        static final Result EMPTY = new Result(0, 0, 0);
+
+        Result plus(Result other) {
+            return new Result(inserted + other.inserted, updated + other.updated, unchanged + other.unchanged);
+        }
+    }
+}
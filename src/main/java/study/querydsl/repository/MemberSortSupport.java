@@ -0,0 +1,116 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Order;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.ComparableExpressionBase;
+import org.springframework.data.domain.Sort;
+import study.querydsl.dto.MemberSearchCondition;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+import static study.querydsl.entity.QTeam.team;
+
+/*
+ * Pageable 의 Sort 를 OrderSpecifier 로 바꾼다. ( 정렬 프로퍼티 : memberId(id), username, age, teamName )
+ * 인덱스로 처리할 수 있는 정렬만 허용하고, 항상 member.id 를 마지막 정렬 기준으로 붙여서
+ * 같은 값끼리의 순서를 고정한다. ( 페이지 사이 중복/누락 방지, limit 과 함께 인덱스 스캔 또는 top-N 정렬로 끝난다. )
+ * - member - team 조인 : member(username), member(age) 인덱스 하나로 처리할 수 있는 한가지 정렬만 허용한다.
+ *   teamName 정렬은 teamName 조건으로 한 팀만 조회할 때는 의미가 없으므로 빼고, 아니면 거절한다.
+ * - 읽기 모델 ( member_team_view ) : teamName, teamName + age 정렬도 ( team_name, age ) 인덱스로 처리할 수 있다.
+ */
+final class MemberSortSupport {
+
+    private MemberSortSupport() {
+    }
+
+    static OrderSpecifier<?>[] orderBy(Sort sort, MemberSearchCondition condition) {
+        Requested requested = Requested.of(sort, condition);
+        if (requested.orders().isEmpty()) {
+            return new OrderSpecifier<?>[]{new OrderSpecifier<>(requested.idDirection(), member.id)};
+        }
+        if (requested.orders().size() > 1) {
+            throw new UnsupportedSortException("정렬은 한가지만 지정할 수 있습니다. sort = " + sort);
+        }
+        Sort.Order order = requested.orders().get(0);
+        ComparableExpressionBase<?> path = switch (order.getProperty()) {
+            case "username" -> member.username;
+            case "age" -> member.age;
+            case "teamName" -> throw new UnsupportedSortException(
+                    "teamName 정렬은 teamName 조건과 함께 쓰거나 읽기 모델 ( member.read-model.enabled ) 에서만 사용할 수 있습니다.");
+            default -> throw unknown(order);
+        };
+        return new OrderSpecifier<?>[]{orderOf(order, path), requested.tiebreaker(order, member.id)};
+    }
+
+    static OrderSpecifier<?>[] orderByView(Sort sort, MemberSearchCondition condition) {
+        Requested requested = Requested.of(sort, condition);
+        List<Sort.Order> orders = requested.orders();
+        if (orders.isEmpty()) {
+            return new OrderSpecifier<?>[]{new OrderSpecifier<>(requested.idDirection(), memberTeamView.memberId)};
+        }
+        Sort.Order first = orders.get(0);
+        if (orders.size() == 2 && first.getProperty().equals("teamName") && orders.get(1).getProperty().equals("age")
+                && orders.get(1).getDirection() == first.getDirection()) {
+            return new OrderSpecifier<?>[]{
+                    orderOf(first, memberTeamView.teamName),
+                    orderOf(orders.get(1), memberTeamView.age),
+                    requested.tiebreaker(first, memberTeamView.memberId)};
+        }
+        if (orders.size() > 1) {
+            throw new UnsupportedSortException("정렬은 한가지 ( 또는 teamName, age ) 만 지정할 수 있습니다. sort = " + sort);
+        }
+        ComparableExpressionBase<?> path = switch (first.getProperty()) {
+            case "username" -> memberTeamView.username;
+            case "age" -> memberTeamView.age;
+            case "teamName" -> memberTeamView.teamName;
+            default -> throw unknown(first);
+        };
+        return new OrderSpecifier<?>[]{orderOf(first, path), requested.tiebreaker(first, memberTeamView.memberId)};
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static OrderSpecifier<?> orderOf(Sort.Order order, ComparableExpressionBase<?> path) {
+        return new OrderSpecifier(direction(order), path);
+    }
+
+    // orders : id 앞의 정렬 ( 한 팀만 조회할 때의 teamName 정렬은 뺀다. )
+    // explicitIdDirection : id 를 직접 지정했으면 그 방향. id 는 유일하므로 그 뒤의 정렬은 버린다.
+    private record Requested(List<Sort.Order> orders, Order explicitIdDirection) {
+
+        static Requested of(Sort sort, MemberSearchCondition condition) {
+            List<Sort.Order> orders = new ArrayList<>();
+            for (Sort.Order order : sort) {
+                String property = order.getProperty();
+                if (property.equals("memberId") || property.equals("id")) {
+                    return new Requested(orders, direction(order));
+                }
+                if (!(property.equals("teamName") && hasText(condition.getTeamName()))) {
+                    orders.add(order);
+                }
+            }
+            return new Requested(orders, null);
+        }
+
+        Order idDirection() {
+            return explicitIdDirection != null ? explicitIdDirection : Order.ASC;
+        }
+
+        // id 를 지정하지 않았으면 첫 정렬과 같은 방향으로 붙인다. ( 인덱스를 거꾸로 읽는 경우에도 그대로 쓸 수 있다. )
+        OrderSpecifier<Long> tiebreaker(Sort.Order first, ComparableExpressionBase<Long> id) {
+            return new OrderSpecifier<>(explicitIdDirection != null ? explicitIdDirection : direction(first), id);
+        }
+    }
+
+    private static Order direction(Sort.Order order) {
+        return order.isAscending() ? Order.ASC : Order.DESC;
+    }
+
+    private static UnsupportedSortException unknown(Sort.Order order) {
+        return new UnsupportedSortException("정렬할 수 없는 프로퍼티입니다. property = " + order.getProperty()
+                + " ( memberId, username, age, teamName )");
+    }
+}
@@ -0,0 +1,144 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static java.util.stream.Collectors.joining;
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMember.member;
+
+/*
+ * MemberRepositoryCustom 검색의 네이티브 SQL 버전 ( member - team 조인을 JDBC 로 바로 실행 )
+ * 작고 자주 호출되는 검색에서 HQL 파싱/SQL 변환, Hibernate 결과 처리를 건너뛰고 ResultSet 에서 MemberTeamDto 를 바로 만든다.
+ * 조건, 정렬 ( MemberSortSupport ), 페이징 규칙은 QueryDSL 쿼리와 같다.
+ * member.search.native-sql.enabled 가 켜져 있으면 MemberRepositoryImpl 이 QueryDSL 쿼리 대신 이 리포지토리를 사용한다. ( 읽기 모델이 켜져 있으면 읽기 모델이 우선 )
+ *
+ * JDBC 는 영속성 컨텍스트를 거치지 않으므로 쓰기 트랜잭션 안에서 호출하면 먼저 flush 해서 아직 반영되지 않은 변경도 보이게 한다.
+ */
+@Repository
+public class MemberTeamSqlRepository {
+
+    private static final String SELECT = """
+            select m.member_id, m.username, m.age, t.team_id, t.name
+            from member m
+            left join team t on t.team_id = m.team_id""";
+
+    private static final String COUNT = """
+            select count(*)
+            from member m
+            left join team t on t.team_id = m.team_id""";
+
+    private static final RowMapper<MemberTeamDto> ROW_MAPPER = (rs, rowNum) -> new MemberTeamDto(
+            rs.getLong(1),
+            rs.getString(2),
+            rs.getInt(3),
+            rs.getObject(4, Long.class),
+            rs.getString(5));
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+
+    public MemberTeamSqlRepository(EntityManager em, JdbcTemplate jdbcTemplate,
+                                   @Value("${member.search.native-sql.enabled:false}") boolean enabled) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT + where(condition, args);
+        flushIfWriting();
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable) {
+        return searchContent(condition, pageable, pageable.getPageSize());
+    }
+
+    // limit : Slice 는 다음 페이지 여부를 알기 위해 pageSize + 1 개를 읽는다.
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable, int limit) {
+        List<Object> args = new ArrayList<>();
+        String sql = SELECT + where(condition, args)
+                + " order by " + orderBy(MemberSortSupport.orderBy(pageable.getSort(), condition))
+                + " limit ? offset ?";
+        args.add(limit);
+        args.add(pageable.getOffset());
+        flushIfWriting();
+        return jdbcTemplate.query(sql, ROW_MAPPER, args.toArray());
+    }
+
+    public long count(MemberSearchCondition condition) {
+        List<Object> args = new ArrayList<>();
+        String sql = COUNT + where(condition, args);
+        flushIfWriting();
+        Long count = jdbcTemplate.queryForObject(sql, Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    private String where(MemberSearchCondition condition, List<Object> args) {
+        List<String> predicates = new ArrayList<>(4);
+        if (hasText(condition.getUsername())) {
+            predicates.add("m.username = ?");
+            args.add(condition.getUsername());
+        }
+        if (hasText(condition.getTeamName())) {
+            predicates.add("t.name = ?");
+            args.add(condition.getTeamName());
+        }
+        if (condition.getAgeGoe() != null) {
+            predicates.add("m.age >= ?");
+            args.add(condition.getAgeGoe());
+        }
+        if (condition.getAgeLoe() != null) {
+            predicates.add("m.age <= ?");
+            args.add(condition.getAgeLoe());
+        }
+        return predicates.isEmpty() ? "" : " where " + String.join(" and ", predicates);
+    }
+
+    // MemberSortSupport 가 허용한 정렬만 들어오므로 컬럼은 member_id, username, age 중 하나다.
+    private static String orderBy(OrderSpecifier<?>[] orders) {
+        return Arrays.stream(orders)
+                .map(order -> column(order.getTarget()) + (order.isAscending() ? " asc" : " desc"))
+                .collect(joining(", "));
+    }
+
+    private static String column(Expression<?> target) {
+        if (target.equals(member.id)) {
+            return "m.member_id";
+        }
+        if (target.equals(member.username)) {
+            return "m.username";
+        }
+        if (target.equals(member.age)) {
+            return "m.age";
+        }
+        throw new IllegalStateException("정렬 컬럼으로 바꿀 수 없습니다. " + target);
+    }
+
+    private void flushIfWriting() {
+        if (TransactionSynchronizationManager.isActualTransactionActive()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            em.flush();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Predicate;
+import com.querydsl.core.types.dsl.BooleanExpression;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Repository;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.dto.QMemberTeamDto;
+
+import java.util.List;
+
+import static org.springframework.util.StringUtils.hasText;
+import static study.querydsl.entity.QMemberTeamView.memberTeamView;
+
+// member_team_view 읽기 모델 검색 ( 조인 없이 MemberTeamDto 를 바로 읽는다. )
+// member.read-model.enabled 가 켜져 있으면 회원 검색 리포지토리들이 조인 쿼리 대신 이 리포지토리를 사용한다.
+@Repository
+public class MemberTeamViewRepository {
+
+    private final JPAQueryFactory queryFactory;
+    private final boolean enabled;
+
+    public MemberTeamViewRepository(EntityManager em, @Value("${member.read-model.enabled:false}") boolean enabled) {
+        this.queryFactory = new JPAQueryFactory(em);
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<MemberTeamDto> search(MemberSearchCondition condition) {
+        return queryFactory
+                .select(dto())
+                .from(memberTeamView)
+                .where(where(condition))
+                .fetch();
+    }
+
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable) {
+        return searchContent(condition, pageable, pageable.getPageSize());
+    }
+
+    // limit : Slice 는 다음 페이지 여부를 알기 위해 pageSize + 1 개를 읽는다.
+    public List<MemberTeamDto> searchContent(MemberSearchCondition condition, Pageable pageable, int limit) {
+        return queryFactory
+                .select(dto())
+                .from(memberTeamView)
+                .where(where(condition))
+                .orderBy(MemberSortSupport.orderByView(pageable.getSort(), condition))
+                .offset(pageable.getOffset())
+                .limit(limit)
+                .fetch();
+    }
+
+    public long count(MemberSearchCondition condition) {
+        Long count = queryFactory
+                .select(memberTeamView.count())
+                .from(memberTeamView)
+                .where(where(condition))
+                .fetchOne();
+        return count != null ? count : 0;
+    }
+
+    private QMemberTeamDto dto() {
+        return new QMemberTeamDto(
+                memberTeamView.memberId,
+                memberTeamView.username,
+                memberTeamView.age,
+                memberTeamView.teamId,
+                memberTeamView.teamName);
+    }
+
+    private Predicate[] where(MemberSearchCondition condition) {
+        return new Predicate[]{
+                usernameEq(condition.getUsername()),
+                teamNameEq(condition.getTeamName()),
+                ageGoe(condition.getAgeGoe()),
+                ageLoe(condition.getAgeLoe())
+        };
+    }
+
+    private BooleanExpression ageLoe(Integer ageLoe) {
+        return ageLoe != null ? memberTeamView.age.loe(ageLoe) : null;
+    }
+
+    private BooleanExpression ageGoe(Integer ageGoe) {
+        return ageGoe != null ? memberTeamView.age.goe(ageGoe) : null;
+    }
+
+    private BooleanExpression teamNameEq(String teamName) {
+        return hasText(teamName) ? memberTeamView.teamName.eq(teamName) : null;
+    }
+
+    private BooleanExpression usernameEq(String username) {
+        return hasText(username) ? memberTeamView.username.eq(username) : null;
+    }
+}
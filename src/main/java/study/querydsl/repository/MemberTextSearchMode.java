@@ -0,0 +1,8 @@
+package study.querydsl.repository;
+
+// 회원 이름 / 팀 이름 전문검색 방식
+public enum MemberTextSearchMode {
+    TOKEN,  // 분석기로 나눈 토큰이 일치
+    PREFIX, // 토큰이 검색어로 시작
+    FUZZY   // 오타 허용 ( 편집거리 2 이내 )
+}
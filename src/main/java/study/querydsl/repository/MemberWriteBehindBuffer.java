@@ -0,0 +1,318 @@
+package study.querydsl.repository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.search.mapper.orm.Search;
+import org.hibernate.search.mapper.orm.work.SearchIndexingPlan;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/*
+ * 자주 바뀌는 회원 속성(age, username)을 바로 DB에 쓰지 않고 회원 id 별로 모아두었다가 주기적으로 한번에 반영한다.
+ * 초당 여러번 바뀌는 회원도 flush 주기마다 update 한번만 나가고, 여러 회원의 update 는 JDBC 배치로 묶인다.
+ *
+ * - 메모리 제한 : 동시에 대기할 수 있는 회원 수는 capacity 개. 가득 차면 호출한 스레드가 offerTimeout 만큼 기다리고, 그래도 자리가 없으면 예외를 던진다.
+ * - read-your-writes : 아직 반영되지 않은 값은 overlay() 로 조회 결과에 덮어쓴다. ( MemberController 응답 )
+ *   검색 조건 / 정렬은 DB 값으로 적용되므로 덮어쓴 값이 조건과 맞지 않을 수 있다.
+ * - 종료 시 남은 변경을 모두 반영한다.
+ * - 반영에 실패한 변경은 다음 flush 에서 다시 시도하고, maxAttempts 번 실패하면 버린다.
+ * JDBC 로 직접 update 하므로 영속성 컨텍스트에 올라와 있는 Member 에는 반영되지 않는다. ( 니어 캐시와 읽기 모델은 직접 갱신한다. )
+ */
+@Slf4j
+@Component
+public class MemberWriteBehindBuffer {
+
+    private static final String UPDATE_SQL =
+            "update member set age = coalesce(?, age), username = coalesce(?, username) where member_id = ?";
+
+    private final Map<Long, PendingUpdate> pending = new ConcurrentHashMap<>();
+    private final Map<Long, PendingUpdate> inFlight = new ConcurrentHashMap<>();
+    private final Semaphore permits;
+    private final int capacity;
+    private final long offerTimeoutMillis;
+    private final int maxAttempts;
+    private final AtomicLong dropped = new AtomicLong();
+
+    private final EntityManager em;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final MemberTeamCacheInvalidator cacheInvalidator;
+    private final MemberTeamViewUpdater memberTeamViewUpdater;
+    private final ScheduledExecutorService scheduler;
+
+    public MemberWriteBehindBuffer(EntityManager em,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   MemberTeamCacheInvalidator cacheInvalidator,
+                                   MemberTeamViewUpdater memberTeamViewUpdater,
+                                   @Value("${member.write-behind.capacity:10000}") int capacity,
+                                   @Value("${member.write-behind.flush-interval-ms:200}") long flushIntervalMillis,
+                                   @Value("${member.write-behind.offer-timeout-ms:1000}") long offerTimeoutMillis,
+                                   @Value("${member.write-behind.max-attempts:3}") int maxAttempts) {
+        this.em = em;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.cacheInvalidator = cacheInvalidator;
+        this.memberTeamViewUpdater = memberTeamViewUpdater;
+        this.capacity = capacity;
+        this.permits = new Semaphore(capacity);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+        this.maxAttempts = maxAttempts;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "member-write-behind");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public void updateAge(Long memberId, int age) {
+        update(memberId, new PendingUpdate(age, null, 0));
+    }
+
+    public void updateUsername(Long memberId, String username) {
+        update(memberId, new PendingUpdate(null, username, 0));
+    }
+
+    private void update(Long memberId, PendingUpdate change) {
+        while (true) {
+            // 이미 대기중인 회원이면 합치기만 한다. ( 자리를 더 차지하지 않는다. )
+            if (pending.computeIfPresent(memberId, (id, old) -> old.merge(change)) != null) {
+                return;
+            }
+            acquirePermit();
+            if (pending.putIfAbsent(memberId, change) == null) {
+                return;
+            }
+            permits.release(); // 다른 스레드가 먼저 넣었으면 다시 합치기를 시도한다.
+        }
+    }
+
+    private void acquirePermit() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        scheduler.execute(this::flushQuietly); // 가득 찼으면 주기를 기다리지 않고 바로 비운다.
+        try {
+            if (!permits.tryAcquire(offerTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new RejectedExecutionException("회원 변경 버퍼가 가득 찼습니다. capacity = " + capacity);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("회원 변경 버퍼 대기 중 인터럽트", e);
+        }
+    }
+
+    // 아직 DB에 반영되지 않은 변경을 조회 결과에 덮어쓴다.
+    public MemberTeamDto overlay(MemberTeamDto dto) {
+        PendingUpdate update = find(dto.getMemberId());
+        if (update == null) {
+            return dto;
+        }
+        return new MemberTeamDto(dto.getMemberId(),
+                update.username() != null ? update.username() : dto.getUsername(),
+                update.age() != null ? update.age() : dto.getAge(),
+                dto.getTeamId(),
+                dto.getTeamName());
+    }
+
+    public List<MemberTeamDto> overlay(List<MemberTeamDto> dtos) {
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return dtos;
+        }
+        return dtos.stream().map(this::overlay).toList();
+    }
+
+    // 페이지 정보 ( 추정 전체 건수 포함 ) 는 그대로 두고 내용만 덮어쓴다.
+    public Page<MemberTeamDto> overlay(Page<MemberTeamDto> page) {
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return page;
+        }
+        List<MemberTeamDto> content = overlay(page.getContent());
+        return page instanceof ApproximatePage
+                ? new ApproximatePage<>(content, page.getPageable(), page.getTotalElements())
+                : new PageImpl<>(content, page.getPageable(), page.getTotalElements());
+    }
+
+    public Slice<MemberTeamDto> overlay(Slice<MemberTeamDto> slice) {
+        if (slice instanceof Page<MemberTeamDto> page) {
+            return overlay(page);
+        }
+        if (pending.isEmpty() && inFlight.isEmpty()) {
+            return slice;
+        }
+        return new SliceImpl<>(overlay(slice.getContent()), slice.getPageable(), slice.hasNext());
+    }
+
+    private PendingUpdate find(Long memberId) {
+        PendingUpdate flushing = inFlight.get(memberId);
+        PendingUpdate waiting = pending.get(memberId);
+        if (flushing == null) {
+            return waiting;
+        }
+        return waiting == null ? flushing : flushing.merge(waiting);
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    // 동시에 하나의 flush 만 실행해서 같은 회원의 변경 순서가 뒤바뀌지 않게 한다.
+    // 처음 반영하는 변경은 JDBC 배치 하나로 묶고, 실패한 적이 있는 변경은 한 회원씩 따로 반영한다.
+    // ( 항상 실패하는 회원 하나 때문에 같은 배치의 다른 회원까지 계속 실패하지 않도록 )
+    // 일부가 실패해도 나머지는 반영하고, 첫번째 예외를 던진다.
+    public synchronized int flush() {
+        for (Long memberId : new ArrayList<>(pending.keySet())) {
+            PendingUpdate update = pending.remove(memberId);
+            if (update != null) {
+                inFlight.put(memberId, update);
+            }
+        }
+        if (inFlight.isEmpty()) {
+            return 0;
+        }
+
+        List<Long> batch = new ArrayList<>();
+        List<Long> retries = new ArrayList<>();
+        inFlight.forEach((memberId, update) -> (update.attempts() == 0 ? batch : retries).add(memberId));
+
+        int flushed = 0;
+        RuntimeException failure = null;
+        List<List<Long>> units = new ArrayList<>();
+        if (!batch.isEmpty()) {
+            units.add(batch);
+        }
+        retries.forEach(memberId -> units.add(List.of(memberId)));
+        for (List<Long> ids : units) {
+            try {
+                write(ids);
+                ids.forEach(inFlight::remove);
+                permits.release(ids.size());
+                flushed += ids.size();
+            } catch (RuntimeException e) {
+                requeue(ids);
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return flushed;
+    }
+
+    // 지워진 회원은 update 가 0건이므로 실패하지 않고 그냥 사라진다.
+    private void write(List<Long> ids) {
+        transactionTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, ids, ids.size(), (ps, memberId) -> {
+                PendingUpdate update = inFlight.get(memberId);
+                ps.setObject(1, update.age());
+                ps.setString(2, update.username());
+                ps.setLong(3, memberId);
+            });
+            memberTeamViewUpdater.updateAttributes(ids.stream()
+                    .map(memberId -> new Object[]{inFlight.get(memberId).age(), inFlight.get(memberId).username(), memberId})
+                    .toList());
+            // username 은 전문검색 인덱스에 들어가므로 바뀐 회원만 update 이후 값으로 다시 읽어서 인덱싱한다.
+            List<Long> renamed = ids.stream().filter(id -> inFlight.get(id).username() != null).toList();
+            if (!renamed.isEmpty()) {
+                SearchIndexingPlan indexingPlan = Search.session(em).indexingPlan();
+                em.createQuery("SELECT m FROM Member m LEFT JOIN FETCH m.team WHERE m.id IN :ids", Member.class)
+                        .setParameter("ids", renamed)
+                        .getResultList()
+                        .forEach(indexingPlan::addOrUpdate);
+            }
+            cacheInvalidator.invalidateMembers(ids);
+        });
+    }
+
+    // 실패한 변경은 그 사이 들어온 변경 아래에 다시 넣는다. ( 한번의 merge 로 합쳐서 그 사이의 update() 를 덮어쓰지 않는다. )
+    // maxAttempts 번 실패한 변경은 버린다. ( 그 사이 들어온 변경은 남긴다. )
+    private void requeue(List<Long> ids) {
+        for (Long memberId : ids) {
+            PendingUpdate failed = inFlight.get(memberId).failedOnce();
+            if (failed.attempts() >= maxAttempts) {
+                log.warn("member write-behind update dropped after {} attempts. memberId={}, update={}", failed.attempts(), memberId, failed);
+                inFlight.remove(memberId);
+                permits.release();
+                dropped.incrementAndGet();
+                continue;
+            }
+            boolean[] merged = {false};
+            pending.merge(memberId, failed, (newer, f) -> {
+                merged[0] = true;
+                return f.merge(newer);
+            });
+            inFlight.remove(memberId); // pending 에 넣은 뒤에 지워야 overlay() 에서 빠지는 순간이 없다.
+            if (merged[0]) {
+                permits.release(); // 그 사이 들어온 변경이 이미 자리를 차지하고 있다.
+            }
+        }
+    }
+
+    // 실패를 반복해서 버린 변경 수
+    public long droppedCount() {
+        return dropped.get();
+    }
+
+    int remainingCapacity() {
+        return permits.availablePermits();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("member write-behind flush failed. pending={}", pending.size(), e);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    // null 인 속성은 변경하지 않는다. attempts : 반영에 실패한 횟수
+    private record PendingUpdate(Integer age, String username, int attempts) {
+        PendingUpdate merge(PendingUpdate newer) {
+            return new PendingUpdate(
+                    newer.age != null ? newer.age : age,
+                    newer.username != null ? newer.username : username,
+                    attempts);
+        }
+
+        PendingUpdate failedOnce() {
+            return new PendingUpdate(age, username, attempts + 1);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQuery;
+import org.hibernate.FlushMode;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FLUSH_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
+
+// 조회만 하는 엔티티 쿼리용 힌트
+// readOnly : 엔티티 스냅샷을 만들지 않아 메모리를 아끼고 변경감지도 하지 않는다.
+// FlushMode.MANUAL : 쿼리 전에 플러시하지 않는다. 쓰기 트랜잭션에 참여한 경우에는 아직 반영되지 않은 변경을 조회해야 하므로 적용하지 않는다.
+final class ReadOnlyQuerySupport {
+
+    private ReadOnlyQuerySupport() {
+    }
+
+    static <T> JPAQuery<T> readOnly(JPAQuery<T> query) {
+        query.setHint(HINT_READ_ONLY, true);
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            query.setHint(HINT_FLUSH_MODE, FlushMode.MANUAL);
+        }
+        return query;
+    }
+}
@@ -0,0 +1,10 @@
+package study.querydsl.repository;
+
+// 화이트리스트에 없거나 인덱스로 처리할 수 없는 정렬 ( 컨트롤러에서 400 으로 응답한다. )
+// IllegalArgumentException 은 리포지토리 프록시가 InvalidDataAccessApiUsageException 으로 바꾸므로 RuntimeException 을 상속한다.
+public class UnsupportedSortException extends RuntimeException {
+
+    public UnsupportedSortException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,111 @@
+package study.querydsl.repository;
+
+import com.querydsl.core.types.Expression;
+import com.querydsl.core.types.OrderSpecifier;
+import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+ * SQL 윈도우 함수 ( avg() over (partition by ...), row_number(), rank() ) 템플릿
+ * QueryDSL JPA 에는 윈도우 함수가 없지만 Hibernate 6 HQL 은 over 절을 지원하므로 템플릿으로 HQL 에 그대로 넘긴다.
+ *
+ * 행마다 실행되는 상관 서브쿼리 ( select(memberSub.age.avg()).from(memberSub) ... ) 대신
+ * 한번의 스캔으로 그룹별 집계값을 각 행 옆에 붙일 수 있다.
+ * 윈도우 함수는 where 절 이후에 계산되므로 where 에서는 사용할 수 없고 select / order by 에서만 사용한다.
+ *
+ * ex) WindowFunctions.rank(Window.partitionBy(member.team.id).orderBy(member.age.desc()))
+ */
+public final class WindowFunctions {
+
+    private WindowFunctions() {
+    }
+
+    public static NumberExpression<Long> rowNumber(Window window) {
+        return window.apply(Long.class, "row_number()");
+    }
+
+    public static NumberExpression<Long> rank(Window window) {
+        return window.apply(Long.class, "rank()");
+    }
+
+    public static NumberExpression<Long> denseRank(Window window) {
+        return window.apply(Long.class, "dense_rank()");
+    }
+
+    public static NumberExpression<Double> avg(Expression<? extends Number> arg, Window window) {
+        return window.apply(Double.class, "avg({0})", arg);
+    }
+
+    public static <T extends Number & Comparable<?>> NumberExpression<T> sum(Expression<T> arg, Window window) {
+        return window.apply(arg.getType(), "sum({0})", arg);
+    }
+
+    public static NumberExpression<Long> count(Window window) {
+        return window.apply(Long.class, "count(*)");
+    }
+
+    // over ( partition by ... order by ... ) 절. 불변이므로 여러 윈도우 함수에서 같이 사용해도 된다.
+    public static final class Window {
+
+        private final List<Expression<?>> partitionBy;
+        private final List<OrderSpecifier<?>> orderBy;
+
+        private Window(List<Expression<?>> partitionBy, List<OrderSpecifier<?>> orderBy) {
+            this.partitionBy = partitionBy;
+            this.orderBy = orderBy;
+        }
+
+        // 전체 행이 하나의 윈도우 ( over () )
+        public static Window all() {
+            return new Window(List.of(), List.of());
+        }
+
+        public static Window partitionBy(Expression<?>... expressions) {
+            return new Window(List.of(expressions), List.of());
+        }
+
+        public Window orderBy(OrderSpecifier<?>... orders) {
+            List<OrderSpecifier<?>> merged = new ArrayList<>(orderBy);
+            merged.addAll(Arrays.asList(orders));
+            return new Window(partitionBy, List.copyOf(merged));
+        }
+
+        // function 의 {0} .. 은 args 를 가리키고, over 절의 식은 그 뒤 번호로 붙인다.
+        private <T extends Number & Comparable<?>> NumberExpression<T> apply(Class<? extends T> type, String function,
+                                                                            Expression<?>... args) {
+            List<Object> all = new ArrayList<>(Arrays.asList(args));
+            StringBuilder template = new StringBuilder(function).append(" over (");
+            if (!partitionBy.isEmpty()) {
+                template.append("partition by ");
+                for (int i = 0; i < partitionBy.size(); i++) {
+                    template.append(i > 0 ? ", " : "").append('{').append(all.size()).append('}');
+                    all.add(partitionBy.get(i));
+                }
+            }
+            if (!orderBy.isEmpty()) {
+                template.append(partitionBy.isEmpty() ? "" : " ").append("order by ");
+                for (int i = 0; i < orderBy.size(); i++) {
+                    OrderSpecifier<?> order = orderBy.get(i);
+                    template.append(i > 0 ? ", " : "").append('{').append(all.size()).append('}')
+                            .append(order.isAscending() ? " asc" : " desc")
+                            .append(nulls(order.getNullHandling()));
+                    all.add(order.getTarget());
+                }
+            }
+            template.append(')');
+            return Expressions.numberTemplate(type, template.toString(), all.toArray());
+        }
+
+        private static String nulls(OrderSpecifier.NullHandling nullHandling) {
+            return switch (nullHandling) {
+                case NullsFirst -> " nulls first";
+                case NullsLast -> " nulls last";
+                case Default -> "";
+            };
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package study.querydsl.slowquery;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(SlowQueryProperties.class)
+public class SlowQueryConfig {
+}
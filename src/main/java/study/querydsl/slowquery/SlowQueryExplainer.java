@@ -0,0 +1,170 @@
+package study.querydsl.slowquery;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/*
+ * 느린 select 의 실행계획을 백그라운드 스레드에서 EXPLAIN ANALYZE 로 구해서 최근 capacity 개만 보관한다.
+ * - 요청 스레드는 큐에 넣기만 한다. 큐가 가득 차면 버리고, 버린 쿼리 모양은 기록하지 않는다. ( 다음에 다시 잡을 수 있게 )
+ * - EXPLAIN ANALYZE 는 쿼리를 다시 실행하므로 explainInterval 에 한번, 같은 fingerprint 는 fingerprintInterval 에 한번만 실행한다.
+ * - select 만 대상이다. ( insert/update/delete 를 EXPLAIN ANALYZE 하면 데이터가 바뀐다. )
+ * - 바인딩한 값을 읽지 못하면 ( parameters 가 null ) EXPLAIN 하지 않는다.
+ * - 바인딩한 값은 EXPLAIN ANALYZE 를 실행할 때 PreparedStatement 파라미터로만 쓰고 보관하지 않는다.
+ *   보관하는 SQL / 실행계획에는 ? 가 남는다. ( 회원 이름 등 값이 로그나 /admin/slow-queries 로 새지 않게 )
+ */
+@Slf4j
+@Component
+public class SlowQueryExplainer {
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*(?:/\\*.*?\\*/\\s*)+", Pattern.DOTALL); // use_sql_comments 의 JPQL 주석
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final SlowQueryProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final long thresholdNanos;
+    private final ThreadPoolExecutor executor;
+    private final Deque<SlowQueryPlan> plans;
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private final AtomicLong lastExplainAt = new AtomicLong(Long.MIN_VALUE);
+
+    // 커넥션 풀 ( p6spy 가 감싼 DataSource ) 이 이 리스너를 사용하므로 순환 참조를 피하려고 지연 주입한다.
+    public SlowQueryExplainer(SlowQueryProperties properties, @Lazy JdbcTemplate jdbcTemplate) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.thresholdNanos = properties.getThreshold().toNanos();
+        this.plans = new ArrayDeque<>(properties.getCapacity());
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(16), r -> {
+            Thread thread = new Thread(r, "slow-query-explain");
+            thread.setDaemon(true);
+            return thread;
+        }, new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    boolean isSlow(long elapsedNanos) {
+        return properties.isEnabled() && elapsedNanos >= thresholdNanos;
+    }
+
+    // parameters : 바인딩한 값 ( 실행계획을 구할 쿼리만 호출 스레드에서 바로 꺼낸다. 읽을 수 없으면 null )
+    void capture(String sql, Supplier<List<Object>> parameters, long elapsedNanos) {
+        if (sql == null) {
+            return;
+        }
+        String statement = stripComment(sql);
+        if (!isSelect(statement)) {
+            return;
+        }
+        String fingerprint = fingerprint(statement);
+        long now = System.nanoTime();
+        Long last = lastExplained.get(fingerprint);
+        if (last != null && now - last < properties.getFingerprintInterval().toNanos()) {
+            return;
+        }
+        long lastAny = lastExplainAt.get();
+        if (lastAny != Long.MIN_VALUE && now - lastAny < properties.getExplainInterval().toNanos()) {
+            return;
+        }
+        List<Object> values = parameters.get();
+        if (values == null) {
+            return;
+        }
+        if (!lastExplainAt.compareAndSet(lastAny, now)) {
+            return; // 다른 스레드가 먼저 실행
+        }
+        lastExplained.put(fingerprint, now);
+        try {
+            executor.execute(() -> explain(fingerprint, statement, values, elapsedNanos));
+        } catch (RejectedExecutionException e) { // 큐가 가득 찼거나 종료 중이면 실행하지 않은 것으로 되돌린다.
+            if (last != null) {
+                lastExplained.replace(fingerprint, now, last);
+            } else {
+                lastExplained.remove(fingerprint, now);
+            }
+            lastExplainAt.compareAndSet(now, lastAny);
+        }
+    }
+
+    private void explain(String fingerprint, String sql, List<Object> parameters, long elapsedNanos) {
+        String plan;
+        try {
+            plan = String.join("\n", jdbcTemplate.query(con -> {
+                PreparedStatement statement = con.prepareStatement(properties.getExplainPrefix() + sql);
+                for (int i = 0; i < parameters.size(); i++) {
+                    statement.setObject(i + 1, parameters.get(i));
+                }
+                statement.setQueryTimeout((int) Math.max(1, properties.getExplainTimeout().toSeconds()));
+                return statement;
+            }, (rs, rowNum) -> rs.getString(1)));
+        } catch (RuntimeException e) {
+            log.debug("slow query explain failed. fingerprint={}", fingerprint, e);
+            plan = "EXPLAIN 실패 : " + e.getMessage();
+        }
+        SlowQueryPlan captured = new SlowQueryPlan(fingerprint, sql, TimeUnit.NANOSECONDS.toMillis(elapsedNanos), Instant.now(), plan);
+        log.warn("slow query {}ms fingerprint={}\n{}\n{}", captured.elapsedMillis(), fingerprint, sql, plan);
+        synchronized (plans) {
+            if (plans.size() >= properties.getCapacity()) {
+                plans.removeFirst();
+            }
+            plans.addLast(captured);
+        }
+    }
+
+    // 최근 것부터
+    public List<SlowQueryPlan> recent() {
+        synchronized (plans) {
+            List<SlowQueryPlan> result = new ArrayList<>(plans);
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    public void clear() {
+        synchronized (plans) {
+            plans.clear();
+        }
+        lastExplained.clear();
+    }
+
+    // 값 ( 문자열, 숫자 ) 을 ? 로 바꾸고 공백을 정리한 SQL 의 해시
+    static String fingerprint(String sql) {
+        String normalized = WHITESPACE.matcher(NUMBER_LITERAL.matcher(STRING_LITERAL.matcher(sql).replaceAll("?")).replaceAll("?"))
+                .replaceAll(" ").trim().toLowerCase();
+        return HexFormat.of().toHexDigits(normalized.hashCode());
+    }
+
+    private static String stripComment(String sql) {
+        return LEADING_COMMENT.matcher(sql).replaceFirst("");
+    }
+
+    private static boolean isSelect(String sql) {
+        String trimmed = sql.stripLeading();
+        return trimmed.regionMatches(true, 0, "select", 0, 6) || trimmed.regionMatches(true, 0, "with", 0, 4);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,84 @@
+package study.querydsl.slowquery;
+
+import com.p6spy.engine.common.PreparedStatementInformation;
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.common.Value;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// p6spy 가 잰 실행 시간이 기준을 넘은 쿼리를 SlowQueryExplainer 에 넘긴다.
+@Slf4j
+@Component
+public class SlowQueryListener extends SimpleJdbcEventListener {
+
+    // 실행계획은 바인딩한 값으로 다시 실행해서 구하지만 SQL 문자열에는 값을 넣지 않는다. ( 느린 쿼리에서만 호출 )
+    // p6spy 의 내부 메서드라서 버전이 바뀌면 없어질 수 있다. 못 쓰게 되면 한번만 로그를 남기고 EXPLAIN 을 건너뛴다.
+    private static volatile Method parameterValues = findParameterValues();
+
+    private final SlowQueryExplainer explainer;
+
+    public SlowQueryListener(SlowQueryExplainer explainer) {
+        this.explainer = explainer;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (e == null && explainer.isSlow(timeElapsedNanos)) {
+            explainer.capture(statementInformation.getSql(), () -> parameters(statementInformation), timeElapsedNanos);
+        }
+    }
+
+    // 바인딩한 값 ( 파라미터 순서대로 ), 읽을 수 없으면 null
+    @SuppressWarnings("unchecked")
+    private static List<Object> parameters(StatementInformation statementInformation) {
+        if (!(statementInformation instanceof PreparedStatementInformation)) {
+            return List.of();
+        }
+        Method method = parameterValues;
+        if (method == null) {
+            return null;
+        }
+        Map<Integer, Value> values;
+        try {
+            values = (Map<Integer, Value>) method.invoke(statementInformation);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            disableParameterValues(e);
+            return null;
+        }
+        if (values == null || values.isEmpty()) {
+            return List.of();
+        }
+        int count = values.keySet().stream().mapToInt(Integer::intValue).max().orElse(-1) + 1; // p6spy 는 0 부터 저장한다.
+        List<Object> parameters = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Value value = values.get(i);
+            parameters.add(value != null ? value.getValue() : null);
+        }
+        return parameters;
+    }
+
+    private static Method findParameterValues() {
+        try {
+            Method method = PreparedStatementInformation.class.getDeclaredMethod("getParameterValues");
+            method.setAccessible(true);
+            return method;
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            log.warn("p6spy parameter values unavailable, slow query EXPLAIN is skipped for prepared statements", e);
+            return null;
+        }
+    }
+
+    private static void disableParameterValues(Exception e) {
+        if (parameterValues != null) {
+            parameterValues = null;
+            log.warn("p6spy parameter values unavailable, slow query EXPLAIN is skipped for prepared statements", e);
+        }
+    }
+}
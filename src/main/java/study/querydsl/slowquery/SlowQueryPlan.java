@@ -0,0 +1,8 @@
+package study.querydsl.slowquery;
+
+import java.time.Instant;
+
+// fingerprint : 값을 ? 로 바꾼 SQL 의 해시 ( 같은 조건 조합이면 같은 값 )
+// sql : 파라미터를 ? 로 둔 SQL, plan : EXPLAIN ANALYZE 결과 ( 실패하면 오류 메시지 ). 바인딩한 값은 담지 않는다.
+public record SlowQueryPlan(String fingerprint, String sql, long elapsedMillis, Instant capturedAt, String plan) {
+}
@@ -0,0 +1,24 @@
+package study.querydsl.slowquery;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+// 느린 쿼리 실행계획 수집 ( member.slow-query )
+@Getter @Setter
+@ConfigurationProperties("member.slow-query")
+public class SlowQueryProperties {
+
+    private boolean enabled = true;
+    private Duration threshold = Duration.ofMillis(200); // 실행 시간이 이 이상인 select 의 실행계획을 남긴다.
+    private String explainPrefix = "EXPLAIN ANALYZE "; // H2, PostgreSQL, MySQL 8
+    private Duration explainTimeout = Duration.ofSeconds(5);
+    // EXPLAIN ANALYZE 는 쿼리를 한번 더 실행하므로 전체 / 같은 쿼리 모양별로 횟수를 제한한다.
+    private Duration explainInterval = Duration.ofSeconds(1);
+    private Duration fingerprintInterval = Duration.ofMinutes(10);
+    private int capacity = 100; // 보관할 실행계획 수 ( 넘으면 오래된 것부터 버린다. )
+    // GET / DELETE /admin/slow-queries 를 연다. 인증이 없는 엔드포인트이므로 기본은 닫아둔다. ( SlowQueryController )
+    private boolean adminEndpoint = false;
+}
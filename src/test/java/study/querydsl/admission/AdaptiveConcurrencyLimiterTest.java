@@ -0,0 +1,102 @@
+package study.querydsl.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdaptiveConcurrencyLimiterTest {
+
+    private static final long FAST = 0;
+
+    @Test
+    public void rejectOverLimit(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(4));
+        List<AdaptiveConcurrencyLimiter.Permit> permits = acquire(limiter, RequestPriority.NORMAL, 4);
+        assertThat(permits).hasSize(4);
+        assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isEmpty();
+        assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+        permits.get(0).release(FAST, false);
+        assertThat(limiter.tryAcquire(RequestPriority.NORMAL)).isPresent();
+    }
+
+    @Test
+    public void lowPriorityLane(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(8)); // LOW 는 8 * 0.25 = 2개
+        assertThat(acquire(limiter, RequestPriority.LOW, 3)).hasSize(2);
+        // 비싼 요청이 몰려도 일반 요청 자리는 남는다.
+        assertThat(acquire(limiter, RequestPriority.NORMAL, 10)).hasSize(6);
+    }
+
+    @Test
+    public void backoffOnSlowRequestOrPoolWait(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(20));
+
+        limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow().release(Duration.ofMillis(100).toNanos(), false); // 풀 대기
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow().release(FAST, true); // 실패
+        assertThat(limiter.getLimit()).isEqualTo(16);
+
+        // 최소 한도 밑으로는 줄지 않는다.
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow().release(FAST, true);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(4);
+    }
+
+    @Test // 실행 스레드를 기다린 시간도 대기로 보고 한도를 줄인다.
+    public void backoffOnQueueWait() throws InterruptedException {
+        MemberAdmissionProperties properties = properties(20);
+        properties.setQueueWaitThreshold(Duration.ofMillis(10));
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties);
+
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow();
+        Thread.sleep(30); // 스레드 풀 큐 대기
+        permit.started();
+        permit.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+
+        // 바로 시작한 요청은 줄이지 않는다.
+        AdaptiveConcurrencyLimiter.Permit fast = limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow();
+        fast.started();
+        fast.release(FAST, false);
+        assertThat(limiter.getLimit()).isEqualTo(18);
+    }
+
+    @Test
+    public void growOnlyWhenUtilized(){
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(properties(10));
+
+        // 한도의 절반도 안쓰면 늘리지 않는다.
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow().release(FAST, false);
+        }
+        assertThat(limiter.getLimit()).isEqualTo(10);
+
+        // 한도를 다 쓰는 동안 빠르게 끝나면 조금씩 는다. ( 한도의 절반 이상 실행중일 때 시작한 요청마다 1/limit )
+        for (int round = 0; round < 10; round++) {
+            acquire(limiter, RequestPriority.NORMAL, limiter.getLimit()).forEach(permit -> permit.release(FAST, false));
+        }
+        assertThat(limiter.getLimit()).isBetween(12, 20);
+    }
+
+    private static MemberAdmissionProperties properties(int initialLimit) {
+        MemberAdmissionProperties properties = new MemberAdmissionProperties();
+        properties.setInitialLimit(initialLimit);
+        properties.setLatencyThreshold(Duration.ofSeconds(10));
+        return properties;
+    }
+
+    private static List<AdaptiveConcurrencyLimiter.Permit> acquire(AdaptiveConcurrencyLimiter limiter, RequestPriority priority, int count) {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            limiter.tryAcquire(priority).ifPresent(permits::add);
+        }
+        return permits;
+    }
+}
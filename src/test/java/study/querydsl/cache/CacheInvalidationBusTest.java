@@ -0,0 +1,220 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+import static study.querydsl.cache.CacheInvalidation.EntityType.MEMBER;
+import static study.querydsl.cache.CacheInvalidation.EntityType.TEAM;
+
+// 스프링 컨텍스트의 버스를 노드 A, 같은 루프백 트랜스포트에 붙인 버스를 노드 B 로 사용한다.
+@SpringBootTest(properties = {
+        "member.cache.invalidation.batch-window-ms=60000",
+        "spring.datasource.url=jdbc:h2:mem:cache-invalidation;DB_CLOSE_DELAY=-1" // 설정이 다른 컨텍스트는 DB 를 따로 쓴다.
+})
+class CacheInvalidationBusTest {
+
+    // 노드 B 가 노드 A 와 같은 네트워크에 붙도록 루프백 트랜스포트를 빈으로 등록한다.
+    @TestConfiguration
+    static class TransportConfig {
+        @Bean
+        CacheInvalidationTransport cacheInvalidationTransport() {
+            return new LoopbackCacheInvalidationTransport();
+        }
+    }
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    CacheInvalidationTransport transport;
+
+    @Autowired
+    CacheInvalidationBus nodeA;
+
+    @Autowired
+    MemberTeamNearCache nodeACache;
+
+    MemberTeamNearCache nodeBCache;
+    CacheInvalidationBus nodeB;
+
+    @BeforeEach
+    public void before(){
+        nodeBCache = new MemberTeamNearCache(true, 1 << 16);
+        nodeB = new CacheInvalidationBus(transport, nodeBCache, entityManagerFactory, "node-b", 60_000);
+        nodeA.flush();
+    }
+
+    @AfterEach
+    public void after(){
+        nodeB.shutdown();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+        nodeACache.clear();
+    }
+
+    @Test
+    public void encodeAndDecode(){
+        CacheInvalidationBatch batch = new CacheInvalidationBatch("node-a", List.of(
+                new CacheInvalidation(MEMBER, 1L, 1L),
+                new CacheInvalidation(TEAM, 300L, 2L),
+                new CacheInvalidation(MEMBER, Long.MAX_VALUE, 1L << 40)));
+        byte[] payload = batch.encode();
+        assertThat(CacheInvalidationBatch.decode(payload)).isEqualTo(batch);
+        assertThat(payload.length).isLessThan(40);
+    }
+
+    @Test // 모르는 엔티티 byte 는 ( 부호 없는 값으로 읽어서 ) 그 건만 건너뛴다.
+    public void decodeSkipsUnknownEntityType(){
+        byte[] payload = new CacheInvalidationBatch("node-a", List.of(
+                new CacheInvalidation(MEMBER, 1L, 1L),
+                new CacheInvalidation(TEAM, 2L, 2L),
+                new CacheInvalidation(MEMBER, 3L, 3L))).encode();
+        int second = 1 + 1 + "node-a".length() + 1 + 3; // 포맷 + 노드 id + 건수 + 첫번째 건
+        payload[second] = (byte) 0xFF;
+
+        assertThat(CacheInvalidationBatch.decode(payload).invalidations()).containsExactly(
+                new CacheInvalidation(MEMBER, 1L, 1L),
+                new CacheInvalidation(MEMBER, 3L, 3L));
+    }
+
+    @Test // 잘린 메시지는 배열 범위 예외가 아니라 IllegalArgumentException 으로 거른다.
+    public void decodeRejectsTruncatedPayload(){
+        byte[] payload = new CacheInvalidationBatch("node-a", List.of(
+                new CacheInvalidation(MEMBER, 1_000_000L, 1L),
+                new CacheInvalidation(TEAM, 2L, 2L))).encode();
+        for (int length = 0; length < payload.length; length++) {
+            byte[] truncated = Arrays.copyOf(payload, length);
+            assertThatThrownBy(() -> CacheInvalidationBatch.decode(truncated))
+                    .isInstanceOf(IllegalArgumentException.class);
+        }
+        byte[] hugeOrigin = {1, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 'a'};
+        assertThatThrownBy(() -> CacheInvalidationBatch.decode(hugeOrigin))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test // 받는 쪽에서 실패해도 ( 깨진 메시지 등 ) 보내는 쪽으로 예외가 넘어가지 않는다.
+    public void receiveFailureDoesNotFailSender(){
+        transport.send(new byte[]{1, 5});
+
+        nodeBCache.putAll(nodeBCache.stamp(), List.of(new MemberTeamDto(1L, "member1", 10, null, null)));
+        nodeA.publish(MEMBER, 1L);
+        assertThat(nodeA.flush()).isEqualTo(1);
+        assertThat(nodeBCache.get(1L)).isNull();
+    }
+
+    @Test // 보내기에 실패한 메시지는 버리지 않고 다음 flush 에 다시 보낸다.
+    public void retryAfterSendFailure(){
+        List<byte[]> sent = new ArrayList<>();
+        AtomicBoolean failNext = new AtomicBoolean(true);
+        CacheInvalidationTransport failing = new CacheInvalidationTransport() {
+            @Override
+            public void send(byte[] payload) {
+                if (failNext.getAndSet(false)) {
+                    throw new IllegalStateException("broker down");
+                }
+                sent.add(payload);
+            }
+
+            @Override
+            public void subscribe(Consumer<byte[]> receiver) {
+            }
+        };
+        CacheInvalidationBus nodeC = new CacheInvalidationBus(failing, new MemberTeamNearCache(true, 1 << 16), entityManagerFactory, "node-c", 60_000);
+        try {
+            nodeC.publish(MEMBER, 1L);
+            nodeC.publish(TEAM, 2L);
+            assertThatThrownBy(nodeC::flush).hasMessage("broker down");
+
+            nodeC.publish(MEMBER, 1L); // 되돌려놓은 메시지보다 새 메시지
+            assertThat(nodeC.flush()).isEqualTo(2);
+            assertThat(CacheInvalidationBatch.decode(sent.get(0)).invalidations())
+                    .extracting(CacheInvalidation::entity, CacheInvalidation::id, CacheInvalidation::version)
+                    .containsExactly(tuple(MEMBER, 1L, 3L), tuple(TEAM, 2L, 2L));
+            assertThat(nodeC.flush()).isZero();
+        } finally {
+            nodeC.shutdown();
+        }
+    }
+
+    @Test
+    public void batchAndApplyOnPeer(){
+        nodeBCache.putAll(nodeBCache.stamp(), List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 100L, "teamA"),
+                new MemberTeamDto(3L, "member3", 30, 200L, "teamB")));
+
+        nodeA.publish(MEMBER, 1L);
+        nodeA.publish(MEMBER, 1L);
+        nodeA.publish(TEAM, 200L);
+        assertThat(nodeBCache.get(1L)).isNotNull(); // 보내기 전
+
+        assertThat(nodeA.flush()).isEqualTo(2); // 같은 회원은 한번만
+        assertThat(nodeBCache.get(1L)).isNull();
+        assertThat(nodeBCache.get(2L)).isNotNull();
+        assertThat(nodeBCache.get(3L)).isNull();
+        assertThat(nodeB.appliedVersion(nodeA.getNodeId())).isPositive();
+    }
+
+    @Test
+    public void ignoreOwnMessages(){
+        nodeBCache.putAll(nodeBCache.stamp(), List.of(new MemberTeamDto(1L, "member1", 10, null, null)));
+        nodeB.publish(MEMBER, 1L);
+        nodeB.flush();
+        assertThat(nodeBCache.get(1L)).isNotNull();
+    }
+
+    @Test
+    public void publishAfterCommitOnly(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long memberId = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member = new Member("member1", 10, teamA);
+            em.persist(member);
+            return member.getId();
+        });
+        nodeBCache.putAll(nodeBCache.stamp(), List.of(new MemberTeamDto(memberId, "member1", 10, null, "teamA")));
+
+        // 롤백한 변경은 보내지 않는다.
+        transactionTemplate.executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(11);
+            em.flush();
+            status.setRollbackOnly();
+        });
+        assertThat(nodeA.flush()).isZero();
+        assertThat(nodeBCache.get(memberId)).isNotNull();
+
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, memberId).setAge(12));
+        assertThat(nodeA.flush()).isEqualTo(1);
+        assertThat(nodeBCache.get(memberId)).isNull();
+    }
+}
@@ -0,0 +1,164 @@
+package study.querydsl.cache;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 캐시는 쓰기 트랜잭션 밖에서만 쓰이므로 테스트 데이터를 커밋한다. ( @Transactional 사용X )
+@SpringBootTest
+class MemberTeamNearCacheTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTeamNearCache nearCache;
+
+    @AfterEach
+    public void after(){
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+        nearCache.clear();
+    }
+
+    @Test
+    public void putAndGet(){
+        MemberTeamNearCache cache = new MemberTeamNearCache(true, 1 << 16);
+        cache.putAll(cache.stamp(), List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, null, 20, null, null),
+                new MemberTeamDto(3L, "회원3", 30, 100L, "팀A")));
+
+        assertThat(cache.get(1L)).isEqualTo(new MemberTeamDto(1L, "member1", 10, 100L, "teamA"));
+        assertThat(cache.get(2L)).isEqualTo(new MemberTeamDto(2L, null, 20, null, null));
+        assertThat(cache.get(3L).getUsername()).isEqualTo("회원3");
+        assertThat(cache.get(4L)).isNull();
+        assertThat(cache.getAll(List.of(1L, 4L, 3L))).containsOnlyKeys(1L, 3L);
+
+        // 덮어쓰기
+        cache.putAll(cache.stamp(), List.of(new MemberTeamDto(1L, "renamed", 11, 100L, "teamA")));
+        assertThat(cache.get(1L).getUsername()).isEqualTo("renamed");
+        assertThat(cache.size()).isEqualTo(3);
+    }
+
+    @Test
+    public void invalidate(){
+        MemberTeamNearCache cache = new MemberTeamNearCache(true, 1 << 16);
+        cache.putAll(cache.stamp(), List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 100L, "teamA"),
+                new MemberTeamDto(3L, "member3", 30, 200L, "teamB")));
+
+        cache.invalidate(1L);
+        assertThat(cache.get(1L)).isNull();
+
+        cache.invalidateTeam(100L);
+        assertThat(cache.get(2L)).isNull();
+        assertThat(cache.get(3L)).isNotNull();
+        assertThat(cache.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void staleFillIsIgnored(){
+        MemberTeamNearCache cache = new MemberTeamNearCache(true, 1 << 16);
+        long stamp = cache.stamp(); // 조회 시작
+        cache.invalidate(1L);       // 조회 중에 다른 트랜잭션이 커밋
+        cache.putAll(stamp, List.of(new MemberTeamDto(1L, "old", 10, null, null)));
+        assertThat(cache.get(1L)).isNull();
+    }
+
+    @Test
+    public void compactWhenFull(){
+        MemberTeamNearCache cache = new MemberTeamNearCache(true, 4096);
+        // 덮어쓰기로 버려지는 공간이 버퍼보다 커져도 살아있는 행은 유지된다.
+        for (int round = 0; round < 100; round++) {
+            List<MemberTeamDto> rows = new ArrayList<>();
+            for (long id = 1; id <= 10; id++) {
+                rows.add(new MemberTeamDto(id, "member" + id + "-" + round, round, id, "team" + id));
+            }
+            cache.putAll(cache.stamp(), rows);
+        }
+        assertThat(cache.size()).isEqualTo(10);
+        for (long id = 1; id <= 10; id++) {
+            assertThat(cache.get(id).getUsername()).isEqualTo("member" + id + "-99");
+        }
+
+        // 살아있는 행만으로도 넘치면 비우고 다시 채운다.
+        List<MemberTeamDto> many = new ArrayList<>();
+        for (long id = 1; id <= 1000; id++) {
+            many.add(new MemberTeamDto(id, "member" + id, 1, null, null));
+        }
+        cache.putAll(cache.stamp(), many);
+        assertThat(cache.get(1000L)).isNotNull();
+        assertThat(cache.size()).isLessThan(1000);
+    }
+
+    @Test
+    public void invalidatedByEntityListener(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        Long[] ids = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            return new Long[]{member1.getId(), member2.getId(), teamA.getId()};
+        });
+
+        memberJpaRepository.findAllByIdsAsDto(List.of(ids[0], ids[1]));
+        assertThat(nearCache.get(ids[0])).isNotNull();
+        assertThat(nearCache.get(ids[1])).isNotNull();
+
+        // 회원 수정
+        transactionTemplate.executeWithoutResult(status -> em.find(Member.class, ids[0]).setAge(11));
+        assertThat(nearCache.get(ids[0])).isNull();
+        assertThat(memberJpaRepository.findAllByIdsAsDto(List.of(ids[0]))).extracting("age").containsExactly(11);
+
+        // 팀 이름 수정 -> 소속 회원 모두
+        transactionTemplate.executeWithoutResult(status -> em.find(Team.class, ids[2]).setName("renamed"));
+        assertThat(nearCache.get(ids[0])).isNull();
+        assertThat(nearCache.get(ids[1])).isNull();
+        assertThat(memberJpaRepository.findAllByIdsAsDto(List.of(ids[0], ids[1])))
+                .extracting("teamName").containsOnly("renamed");
+    }
+
+    @Test
+    public void notUsedInWriteTransaction(){
+        Long memberId = new TransactionTemplate(transactionManager).execute(status -> {
+            Member member = new Member("member1", 10);
+            em.persist(member);
+            return member.getId();
+        });
+        memberJpaRepository.findAllByIdsAsDto(List.of(memberId));
+
+        // 쓰기 트랜잭션에서는 flush 전 변경이 보여야 한다.
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            em.find(Member.class, memberId).setAge(50);
+            assertThat(memberJpaRepository.findAllByIdsAsDto(List.of(memberId))).extracting("age").containsExactly(50);
+            status.setRollbackOnly();
+        });
+        assertThat(memberJpaRepository.findAllByIdsAsDto(List.of(memberId))).extracting("age").containsExactly(10);
+    }
+}
@@ -0,0 +1,42 @@
+package study.querydsl.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import study.querydsl.dto.MemberTeamDto;
+
+// JSON과 비교한 간단한 벤치마크 ( 행당 바이트 수, 인코딩 시간 )
+// 기본 test 태스크에서는 제외하고 ./gradlew benchmark 로 실행한다.
+@Tag("benchmark")
+class MemberTeamPageCodecBenchmarkTest {
+
+    private static final int ROUNDS = 200;
+
+    @Test
+    public void compareWithJson() throws Exception {
+        ObjectMapper objectMapper = new ObjectMapper();
+        Page<MemberTeamDto> page = MemberTeamPageCodecTest.samplePage(2000);
+        int rows = page.getNumberOfElements();
+
+        byte[] json = objectMapper.writeValueAsBytes(page.getContent());
+        byte[] binary = MemberTeamPageCodec.encode(page);
+
+        long jsonStart = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            objectMapper.writeValueAsBytes(page.getContent());
+        }
+        long jsonNanos = System.nanoTime() - jsonStart;
+
+        long binaryStart = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            MemberTeamPageCodec.encode(page);
+        }
+        long binaryNanos = System.nanoTime() - binaryStart;
+
+        System.out.println("json bytes/row = " + (double) json.length / rows
+                + ", encode us/page = " + jsonNanos / ROUNDS / 1000);
+        System.out.println("binary bytes/row = " + (double) binary.length / rows
+                + ", encode us/page = " + binaryNanos / ROUNDS / 1000);
+    }
+}
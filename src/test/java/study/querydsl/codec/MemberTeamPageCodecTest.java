@@ -0,0 +1,96 @@
+package study.querydsl.codec;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.repository.ApproximatePage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MemberTeamPageCodecTest {
+
+    @Test
+    public void roundTrip(){
+        List<MemberTeamDto> content = List.of(
+                new MemberTeamDto(1L, "member1", 10, 100L, "teamA"),
+                new MemberTeamDto(2L, "member2", 20, 100L, "teamA"),
+                new MemberTeamDto(7L, "멤버3", 30, 101L, "teamB"),
+                new MemberTeamDto(5L, null, 40, null, null));
+        Page<MemberTeamDto> page = new PageImpl<>(content, PageRequest.of(2, 4), 1000);
+
+        Page<MemberTeamDto> decoded = MemberTeamPageCodec.decode(MemberTeamPageCodec.encode(page));
+
+        assertThat(decoded.getContent()).isEqualTo(content);
+        assertThat(decoded.getNumber()).isEqualTo(2);
+        assertThat(decoded.getSize()).isEqualTo(4);
+        assertThat(decoded.getTotalElements()).isEqualTo(1000);
+    }
+
+    // 추정 건수 페이지는 디코딩해도 ApproximatePage 로 남고, flags 가 없는 버전 1 도 읽는다.
+    @Test
+    public void approximateTotal(){
+        List<MemberTeamDto> content = List.of(new MemberTeamDto(1L, "member1", 10, 100L, "teamA"));
+        Page<MemberTeamDto> page = new ApproximatePage<>(content, PageRequest.of(0, 1), 1_000_000);
+
+        assertThat(MemberTeamPageCodec.decode(MemberTeamPageCodec.encode(page))).isInstanceOf(ApproximatePage.class);
+        assertThat(MemberTeamPageCodec.decode(MemberTeamPageCodec.encode(new PageImpl<>(content, PageRequest.of(0, 1), 2))))
+                .isNotInstanceOf(ApproximatePage.class);
+
+        byte[] version1 = {1, 0, 1, 2, 1, 0, 2, 0, 20, 0}; // [version][page][size][total][rows][사전][id][username][age][team]
+        Page<MemberTeamDto> decoded = MemberTeamPageCodec.decode(version1);
+        assertThat(decoded).isNotInstanceOf(ApproximatePage.class);
+        assertThat(decoded.getContent()).containsExactly(new MemberTeamDto(1L, null, 10, null, null));
+    }
+
+    // 잘리거나 값이 범위를 벗어난 입력은 IllegalArgumentException 으로 거른다.
+    @Test
+    public void rejectMalformed(){
+        byte[] encoded = MemberTeamPageCodec.encode(samplePage(3));
+        for (int length = 0; length < encoded.length; length++) {
+            byte[] truncated = Arrays.copyOf(encoded, length);
+            assertThatThrownBy(() -> MemberTeamPageCodec.decode(truncated)).isInstanceOf(IllegalArgumentException.class);
+        }
+
+        byte[] hugeRowCount = {2, 0, 0, 0, 0, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0};
+        assertThatThrownBy(() -> MemberTeamPageCodec.decode(hugeRowCount)).isInstanceOf(IllegalArgumentException.class);
+
+        byte[] hugePageSize = {2, 0, 0, (byte) 0x80, (byte) 0x80, (byte) 0x80, (byte) 0x80, 0x08, 0, 0, 0};
+        assertThatThrownBy(() -> MemberTeamPageCodec.decode(hugePageSize)).isInstanceOf(IllegalArgumentException.class);
+
+        // [version][flags][page][size][total][rows=1][사전 0개][id][username null][age][team 인덱스 1 : 사전 밖]
+        byte[] teamIndexOutOfDictionary = {2, 0, 0, 1, 1, 1, 0, 2, 0, 0, 1};
+        assertThatThrownBy(() -> MemberTeamPageCodec.decode(teamIndexOutOfDictionary)).isInstanceOf(IllegalArgumentException.class);
+
+        // 문자열 길이가 남은 바이트보다 길다.
+        byte[] longString = {2, 0, 0, 1, 1, 1, 0, 2, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x07, 0, 0};
+        assertThatThrownBy(() -> MemberTeamPageCodec.decode(longString)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    // 같은 페이지를 JSON 의 1/3 보다 작게 인코딩한다. ( 인코딩 시간 비교는 MemberTeamPageCodecBenchmarkTest )
+    @Test
+    public void smallerThanJson() throws Exception {
+        Page<MemberTeamDto> page = samplePage(2000);
+
+        byte[] json = new ObjectMapper().writeValueAsBytes(page.getContent());
+        byte[] binary = MemberTeamPageCodec.encode(page);
+
+        assertThat(binary.length).isLessThan(json.length / 3);
+    }
+
+    static Page<MemberTeamDto> samplePage(int rows){
+        List<MemberTeamDto> content = new ArrayList<>();
+        for (int i = 0; i < rows; i++) {
+            long teamId = i % 20;
+            content.add(new MemberTeamDto((long) i + 1, "member" + i, i % 100, teamId, "team" + teamId));
+        }
+        return new PageImpl<>(content, PageRequest.of(0, rows), 1_000_000);
+    }
+}
@@ -0,0 +1,196 @@
+package study.querydsl.controller;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamNearCache;
+import study.querydsl.codec.MemberTeamPageCodec;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberCountEstimator;
+import study.querydsl.support.MaxQueries;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+// 엔드포인트별 select 수 ( @MaxQueries )
+// 컨트롤러는 비동기 ( WebAsyncTask ) 로 다른 스레드에서 조회하므로 테스트 데이터를 커밋한다. ( @Transactional 사용X )
+@SpringBootTest
+@AutoConfigureMockMvc
+class MemberControllerTest {
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTeamNearCache nearCache;
+
+    @Autowired
+    MemberCountEstimator memberCountEstimator;
+
+    TransactionTemplate transactionTemplate;
+    List<Long> memberIds = new ArrayList<>();
+
+    @BeforeEach
+    public void before(){
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 1; i <= 6; i++) {
+                Member member = new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB);
+                em.persist(member);
+                memberIds.add(member.getId());
+            }
+        });
+        nearCache.clear();
+        memberCountEstimator.refresh(); // 통계가 없으면 첫 페이지 조회가 백그라운드 집계 쿼리를 시작시킨다.
+    }
+
+    @AfterEach
+    public void after(){
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+        nearCache.clear();
+    }
+
+    @Test
+    @MaxQueries(1)
+    public void searchV1() throws Exception {
+        perform(get("/v1/members").param("teamName", "teamA").param("ageGoe", "60").param("ageLoe", "60"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].username", contains("member6")));
+    }
+
+    @Test
+    @MaxQueries(2) // 컨텐츠 + 카운트
+    public void searchPageV3() throws Exception {
+        perform(get("/v3/members").param("teamName", "teamA").param("size", "2").param("sort", "age,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].username", contains("member6", "member4")))
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    @MaxQueries(1) // 컨텐츠만 ( 마지막 페이지라 카운트 쿼리를 생략한다. )
+    public void searchLastPageV3() throws Exception {
+        perform(get("/v3/members").param("teamName", "teamA").param("size", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.totalElements").value(3));
+    }
+
+    @Test
+    @MaxQueries(1) // 카운트 쿼리 없이 pageSize + 1 개만 조회
+    public void searchSliceV4() throws Exception {
+        perform(get("/v4/members").param("teamName", "teamB").param("size", "2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.content[*].username", contains("member1", "member3")))
+                .andExpect(jsonPath("$.last").value(false));
+    }
+
+    @Test
+    @MaxQueries(1) // 한번은 IN 조회, 한번은 니어 캐시
+    public void findMembersBatch() throws Exception {
+        String ids = memberIds.stream().map(String::valueOf).reduce((a, b) -> a + "," + b).orElseThrow();
+        for (int i = 0; i < 2; i++) {
+            perform(get("/v1/members/batch").param("ids", ids))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.length()").value(6))
+                    .andExpect(jsonPath("$[0].teamName").value("teamB"));
+        }
+    }
+
+    @Test
+    @MaxQueries(1) // 순위와 팀 평균을 한번의 쿼리로 계산
+    public void searchRankingV1() throws Exception {
+        perform(get("/v1/members/ranking").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].username", contains("member6", "member4", "member2")))
+                .andExpect(jsonPath("$[*].teamRank", contains(1, 2, 3)))
+                .andExpect(jsonPath("$[*].ageDeviation", contains(20.0, 0.0, -20.0)));
+    }
+
+    @Test // Accept 헤더로 바이너리 페이지 ( MemberTeamPageHttpMessageConverter ) 를 선택한다.
+    public void searchPageBinary() throws Exception {
+        MvcResult result = perform(get("/v3/members").param("teamName", "teamA").param("sort", "age,desc")
+                        .accept(MemberTeamPageCodec.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MemberTeamPageCodec.MEDIA_TYPE))
+                .andReturn();
+
+        Page<MemberTeamDto> page = MemberTeamPageCodec.decode(result.getResponse().getContentAsByteArray());
+        assertThat(page.getContent()).extracting("username").containsExactly("member6", "member4", "member2");
+        assertThat(page.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test // Accept 헤더가 없으면 JSON
+    public void searchPageDefaultJson() throws Exception {
+        perform(get("/v3/members").param("teamName", "teamA"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    @MaxQueries(0) // 정렬 검사는 쿼리 전에 한다.
+    public void unsupportedSort() throws Exception {
+        perform(get("/v3/members").param("sort", "password"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @MaxQueries(0) // 비동기 조회를 시작하기 전에 거절한다.
+    public void textSearchInvalidLimit() throws Exception {
+        mockMvc.perform(get("/v1/members/text").param("q", "member").param("limit", "-1"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/v1/members/text").param("q", "member").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test // 인증 없는 관리 엔드포인트는 기본으로 닫혀 있다. ( member.slow-query.admin-endpoint )
+    @MaxQueries(0)
+    public void slowQueryAdminEndpointDisabledByDefault() throws Exception {
+        mockMvc.perform(get("/admin/slow-queries")).andExpect(status().isNotFound());
+        mockMvc.perform(delete("/admin/slow-queries")).andExpect(status().isNotFound());
+    }
+
+    // WebAsyncTask 결과를 기다렸다가 응답을 만든다.
+    private ResultActions perform(MockHttpServletRequestBuilder request) throws Exception {
+        MvcResult result = mockMvc.perform(request)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(result));
+    }
+}
@@ -0,0 +1,47 @@
+package study.querydsl.controller;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MemberDataGeneratorTest {
+
+    @Test
+    public void sameSeedSameData(){
+        List<MemberDataGenerator.Row> first = generate(new MemberDataGenerator(42, 100, 1.0, 0.01), 1000);
+        List<MemberDataGenerator.Row> second = generate(new MemberDataGenerator(42, 100, 1.0, 0.01), 1000);
+
+        assertThat(first).isEqualTo(second);
+    }
+
+    @Test
+    public void skewedTeamsAndCollisions(){
+        MemberDataGenerator generator = new MemberDataGenerator(0, 1000, 1.0, 0.05);
+        int[] teamSizes = new int[generator.teamCount()];
+        Set<String> usernames = new HashSet<>();
+        int rows = 100_000;
+        for (MemberDataGenerator.Row row : generate(generator, rows)) {
+            teamSizes[row.teamIndex()]++;
+            usernames.add(row.username());
+            assertThat(row.age()).isBetween(0, 99);
+        }
+
+        // Zipf : 첫번째 팀이 마지막 팀보다 훨씬 크다.
+        assertThat(teamSizes[0]).isGreaterThan(teamSizes[teamSizes.length - 1] * 50);
+        // 동명이인이 존재한다.
+        assertThat(usernames.size()).isLessThan(rows);
+    }
+
+    private List<MemberDataGenerator.Row> generate(MemberDataGenerator generator, int count) {
+        List<MemberDataGenerator.Row> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(generator.next());
+        }
+        return rows;
+    }
+}
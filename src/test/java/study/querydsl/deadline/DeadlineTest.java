@@ -0,0 +1,145 @@
+package study.querydsl.deadline;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import study.querydsl.admission.AdaptiveConcurrencyLimiter;
+import study.querydsl.admission.MemberAdmissionProperties;
+import study.querydsl.admission.OverloadedException;
+import study.querydsl.admission.RequestPriority;
+
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "member.deadline.default-timeout=200ms",
+        "member.deadline.endpoints.[/v1/members/batch]=10s",
+        "spring.datasource.url=jdbc:h2:mem:deadline;DB_CLOSE_DELAY=-1" // 설정이 다른 컨텍스트는 DB 를 따로 쓴다.
+})
+class DeadlineTest {
+
+    // 10^10 행을 도는 쿼리 ( 기한이 없으면 끝나지 않는다. )
+    private static final String ENDLESS_QUERY = "select max(a.x + b.x) from system_range(1, 100000) a, system_range(1, 100000) b";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberDeadlines deadlines;
+
+    @Autowired
+    AdaptiveConcurrencyLimiter limiter;
+
+    @Autowired
+    MemberAdmissionProperties admissionProperties;
+
+    @Test
+    public void cancelWhenDeadlineExpires(){
+        long start = System.nanoTime();
+        try (Deadline deadline = Deadline.after(Duration.ofMillis(200))) {
+            assertThatThrownBy(() -> deadline.call(() -> jdbcTemplate.queryForObject(ENDLESS_QUERY, Long.class)))
+                    .isInstanceOf(DataAccessException.class);
+        }
+        assertThat(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start)).isLessThan(2_000);
+    }
+
+    @Test
+    public void cancelRunningQuery() throws Exception {
+        try (Deadline deadline = Deadline.after(Duration.ofMinutes(1))) {
+            CompletableFuture<Long> query = CompletableFuture.supplyAsync(
+                    deadline.wrap(() -> jdbcTemplate.queryForObject(ENDLESS_QUERY, Long.class)));
+            Thread.sleep(200);
+
+            deadline.cancel(); // 클라이언트 연결 끊김
+            assertThatThrownBy(() -> query.get(2, TimeUnit.SECONDS))
+                    .hasCauseInstanceOf(DataAccessException.class);
+        }
+    }
+
+    @Test
+    public void expiredDeadlineFailsBeforeExecute() throws Exception {
+        try (Deadline deadline = Deadline.after(Duration.ZERO)) {
+            Thread.sleep(10);
+            assertThatThrownBy(() -> deadline.call(() -> jdbcTemplate.queryForObject("select 1", Integer.class)))
+                    .isInstanceOf(QueryTimeoutException.class);
+        }
+    }
+
+    @Test
+    public void withoutDeadline(){
+        assertThat(Deadline.current()).isNull();
+        assertThat(jdbcTemplate.queryForObject("select 1", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void endpointTimeoutIsGatewayTimeout(){
+        WebAsyncTask<Long> task = deadlines.within("/v1/members", () -> jdbcTemplate.queryForObject(ENDLESS_QUERY, Long.class));
+        assertThat(task.getTimeout()).isEqualTo(200);
+        assertThatThrownBy(() -> task.getCallable().call())
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GATEWAY_TIMEOUT));
+
+        assertThat(deadlines.within("/v1/members/batch", () -> 1).getTimeout()).isEqualTo(10_000);
+    }
+
+    @Test // 기본 applicationTaskExecutor 가 아니라 동시 실행 한도에 맞춘 전용 스레드 풀에서 실행한다.
+    public void runOnRequestExecutor(){
+        WebAsyncTask<Integer> task = deadlines.within("/v1/members", () -> 1);
+        assertThat(task.getExecutor()).isSameAs(deadlines.executor());
+        assertThat(deadlines.executor().getMaxPoolSize()).isEqualTo(admissionProperties.getMaxLimit());
+        assertThat(deadlines.executor().getQueueCapacity()).isEqualTo(admissionProperties.getMaxLimit());
+    }
+
+    @Test // 잘못된 요청 ( 4xx ) 이 몰려도 한도를 줄이지 않는다. 혼잡 신호 ( 타임아웃, 5xx ) 만 줄인다.
+    public void clientErrorsKeepLimit(){
+        int limit = limiter.getLimit();
+        for (int i = 0; i < 50; i++) {
+            WebAsyncTask<Integer> task = deadlines.within("/v1/members", () -> {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "bad input");
+            });
+            assertThatThrownBy(() -> task.getCallable().call()).isInstanceOf(ResponseStatusException.class);
+        }
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(limit);
+
+        assertThat(MemberDeadlines.isCongestion(new IllegalArgumentException())).isFalse();
+        assertThat(MemberDeadlines.isCongestion(new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE))).isTrue();
+        assertThat(MemberDeadlines.isCongestion(new QueryTimeoutException("timeout"))).isTrue();
+        assertThat(MemberDeadlines.isCongestion(new IllegalStateException(new SQLTransientConnectionException()))).isTrue();
+    }
+
+    @Test
+    public void shedWhenOverLimit() throws Exception {
+        List<AdaptiveConcurrencyLimiter.Permit> permits = new ArrayList<>();
+        limiter.tryAcquire(RequestPriority.NORMAL).ifPresent(permits::add);
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            permits.add(limiter.tryAcquire(RequestPriority.NORMAL).orElseThrow());
+        }
+        try {
+            assertThatThrownBy(() -> deadlines.within("/v1/members", () -> 1))
+                    .isInstanceOfSatisfying(OverloadedException.class, e -> {
+                        assertThat(e.getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+                        assertThat(e.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+                    });
+        } finally {
+            permits.forEach(permit -> permit.release(0, false));
+        }
+        // 한도는 실행이 끝나면 돌려받는다.
+        int inFlight = limiter.getInFlight();
+        assertThat(deadlines.within("/v1/members", () -> 1).getCallable().call()).isEqualTo(1);
+        assertThat(limiter.getInFlight()).isEqualTo(inFlight);
+    }
+}
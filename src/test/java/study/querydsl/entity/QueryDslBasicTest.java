@@ -10,6 +10,7 @@ import com.querydsl.core.types.Projections;
 import com.querydsl.core.types.dsl.BooleanExpression;
 import com.querydsl.core.types.dsl.CaseBuilder;
 import com.querydsl.core.types.dsl.Expressions;
+import com.querydsl.core.types.dsl.NumberExpression;
 import com.querydsl.jpa.JPAExpressions;
 import com.querydsl.jpa.impl.JPAQueryFactory;
 import jakarta.persistence.EntityManager;
@@ -26,6 +27,8 @@ import org.springframework.transaction.annotation.Transactional;
 import study.querydsl.dto.MemberDto;
 import study.querydsl.dto.QMemberDto;
 import study.querydsl.dto.UserDto;
+import study.querydsl.repository.WindowFunctions;
+import study.querydsl.repository.WindowFunctions.Window;
 
 import java.util.List;
 
@@ -445,6 +448,39 @@ public class QueryDslBasicTest {
     }
 
 
+    // 위 서브쿼리는 행마다 평균을 다시 계산한다. 윈도우 함수는 한번의 스캔으로 평균을 각 행에 붙인다.
+    @Test
+    public void selectWindowFunction(){
+        NumberExpression<Double> avgAge = WindowFunctions.avg(member.age, Window.all());
+        List<Tuple> result = queryFactory
+                .select(member.username, avgAge)
+                .from(member)
+                .fetch();
+
+        assertThat(result).extracting(tuple -> tuple.get(avgAge)).containsOnly(25.0);
+    }
+
+    // 팀별 평균 ( partition by ) 과 팀 안에서의 순위
+    @Test
+    public void windowFunctionPartition(){
+        Window byTeam = Window.partitionBy(member.team.id);
+        NumberExpression<Double> teamAvgAge = WindowFunctions.avg(member.age, byTeam);
+        NumberExpression<Long> rowNumber = WindowFunctions.rowNumber(byTeam.orderBy(member.age.desc()));
+        List<Tuple> result = queryFactory
+                .select(member.username, teamAvgAge, rowNumber)
+                .from(member)
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting(tuple -> tuple.get(member.username), tuple -> tuple.get(teamAvgAge), tuple -> tuple.get(rowNumber))
+                .containsExactly(
+                        tuple("member1", 15.0, 2L),
+                        tuple("member2", 15.0, 1L),
+                        tuple("member3", 35.0, 2L),
+                        tuple("member4", 35.0, 1L));
+    }
+
+
     //FROM절 서브쿼리는 JPA가 지원하지 않는다.
     //첫번째 시도 : 서브쿼리를 JOIN으로 바꾼다.
     //두번째 시도 : 애플리케이션 쿼리를 두번 분리해서 실행한다.
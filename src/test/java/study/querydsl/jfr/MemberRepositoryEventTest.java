@@ -0,0 +1,99 @@
+package study.querydsl.jfr;
+
+import jakarta.persistence.EntityManager;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest
+@Transactional
+class MemberRepositoryEventTest {
+
+    private static final String EVENT = "study.querydsl.MemberRepositoryCall";
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 0; i < 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+        em.flush();
+    }
+
+    @Test
+    public void recordRepositoryCalls() throws Exception {
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(10);
+
+        List<RecordedEvent> events = record(() -> {
+            memberRepository.searchPageComplex(condition, PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+            memberJpaRepository.findAll_QueryDSL();
+        });
+
+        assertThat(events).extracting(e -> e.getString("method"))
+                .containsExactly("MemberRepositoryCustom.searchPageComplex", "MemberJpaRepository.findAll_QueryDSL");
+
+        RecordedEvent page = events.get(0);
+        assertThat(page.getString("conditionShape")).isEqualTo("cond(teamName,ageGoe) page(3,age:DESC)");
+        assertThat(page.getLong("rowCount")).isEqualTo(3);
+        assertThat(page.getInt("statementCount")).isEqualTo(2); // 컨텐츠 + 카운트
+        assertThat(page.getInt("sqlHash")).isNotZero();
+        assertThat(page.getDuration("executeTime")).isPositive().isLessThanOrEqualTo(page.getDuration());
+
+        RecordedEvent all = events.get(1);
+        assertThat(all.getLong("rowCount")).isEqualTo(5);
+        assertThat(all.getInt("sqlHash")).isNotEqualTo(page.getInt("sqlHash"));
+    }
+
+    @Test
+    public void disabledWithoutRecording(){
+        // 녹화 중이 아니면 호출만 한다.
+        assertThat(memberJpaRepository.findAll_QueryDSL()).hasSize(5);
+    }
+
+    private List<RecordedEvent> record(Runnable calls) throws Exception {
+        Path file = Files.createTempFile("member-repository", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable(EVENT).withThreshold(Duration.ZERO);
+            recording.start();
+            calls.run();
+            recording.stop();
+            recording.dump(file);
+            return RecordingFile.readAllEvents(file).stream()
+                    .filter(e -> e.getEventType().getName().equals(EVENT))
+                    .toList();
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+}
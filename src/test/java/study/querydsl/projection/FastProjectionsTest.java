@@ -0,0 +1,111 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.ExpressionUtils;
+import com.querydsl.core.types.Projections;
+import com.querydsl.jpa.JPAExpressions;
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.UserDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.QMember;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static study.querydsl.entity.QMember.member;
+
+@SpringBootTest
+@Transactional
+class FastProjectionsTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member(null, 30, teamA));
+    }
+
+    @Test
+    public void beanSameAsProjectionsBean(){
+        List<MemberDto> expected = queryFactory
+                .select(Projections.bean(MemberDto.class, member.username, member.age))
+                .from(member).orderBy(member.age.asc()).fetch();
+        List<MemberDto> result = queryFactory
+                .select(FastProjections.bean(MemberDto.class, member.username, member.age))
+                .from(member).orderBy(member.age.asc()).fetch();
+
+        assertThat(result).isEqualTo(expected);
+        assertThat(result).extracting("username").containsExactly("member1", "member2", null); // null 은 주입하지 않는다.
+    }
+
+    @Test
+    public void fieldsSameAsProjectionsFields(){
+        List<MemberDto> expected = queryFactory
+                .select(Projections.fields(MemberDto.class, member.username, member.age))
+                .from(member).orderBy(member.age.asc()).fetch();
+        List<MemberDto> result = queryFactory
+                .select(FastProjections.fields(MemberDto.class, member.username, member.age))
+                .from(member).orderBy(member.age.asc()).fetch();
+
+        assertThat(result).isEqualTo(expected);
+    }
+
+    @Test
+    public void alias(){
+        QMember memberSub = new QMember("memberSub");
+        List<UserDto> result = queryFactory
+                .select(FastProjections.fields(UserDto.class,
+                        member.username.as("name"),
+                        ExpressionUtils.as(JPAExpressions
+                                .select(memberSub.age.max())
+                                .from(memberSub), "age")))
+                .from(member)
+                .where(member.username.isNotNull())
+                .orderBy(member.username.asc())
+                .fetch();
+
+        assertThat(result).extracting("name").containsExactly("member1", "member2");
+        assertThat(result).extracting("age").containsOnly(30);
+
+        List<UserDto> bySetter = queryFactory
+                .select(FastProjections.bean(UserDto.class, member.username.as("name"), member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+        assertThat(bySetter).containsExactly(new UserDto("member1", 10));
+    }
+
+    @Test
+    public void unknownPropertyIsIgnored(){
+        // QBean 과 같이 이름이 맞지 않는 값은 주입하지 않는다.
+        List<UserDto> result = queryFactory
+                .select(FastProjections.fields(UserDto.class, member.username, member.age))
+                .from(member)
+                .where(member.username.eq("member1"))
+                .fetch();
+
+        assertThat(result).containsExactly(new UserDto(null, 10));
+    }
+
+    @Test
+    public void typeMismatch(){
+        assertThatThrownBy(() -> FastProjections.fields(UserDto.class, member.username.as("age")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,55 @@
+package study.querydsl.projection;
+
+import com.querydsl.core.types.FactoryExpression;
+import com.querydsl.core.types.Projections;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import study.querydsl.dto.MemberDto;
+import study.querydsl.dto.QMemberDto;
+import study.querydsl.dto.UserDto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+// DB 조회 비용을 빼고 한 행을 DTO 로 만드는 비용 ( FactoryExpression.newInstance ) 만 비교한다.
+// 오래 걸리므로 기본 test 태스크에서는 제외하고 ./gradlew benchmark 로 실행한다.
+@Tag("benchmark")
+class ProjectionBenchmarkTest {
+
+    private static final int ROWS = 5_000_000;
+    private static final int ROUNDS = 5;
+
+    @Test
+    public void compareProjections(){
+        Object[] row = {"member1", 10};
+
+        long reflectionBean = measure("Projections.bean", Projections.bean(MemberDto.class, member.username, member.age), row);
+        measure("Projections.fields", Projections.fields(MemberDto.class, member.username, member.age), row);
+        long fastBean = measure("FastProjections.bean", FastProjections.bean(MemberDto.class, member.username, member.age), row);
+        // 필드 주입은 람다로 만들 수 없어 MethodHandle 호출이므로 차이가 작다.
+        measure("FastProjections.fields", FastProjections.fields(MemberDto.class, member.username, member.age), row);
+        measure("FastProjections.fields ( alias )", FastProjections.fields(UserDto.class, member.username.as("name"), member.age), row);
+        measure("@QueryProjection", new QMemberDto(member.username, member.age), row);
+
+        assertThat(fastBean).isLessThan(reflectionBean);
+    }
+
+    // 라운드별 최소 시간 ( ns / row ) 을 반환한다. 첫 라운드는 워밍업
+    private long measure(String name, FactoryExpression<?> projection, Object[] row) {
+        long best = Long.MAX_VALUE;
+        Object sink = null;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < ROWS; i++) {
+                sink = projection.newInstance(row);
+            }
+            long elapsed = System.nanoTime() - start;
+            if (round > 0) {
+                best = Math.min(best, elapsed);
+            }
+        }
+        assertThat(sink).isNotNull();
+        System.out.printf("%-36s : %.1f ns/row%n", name, (double) best / ROWS);
+        return best;
+    }
+}
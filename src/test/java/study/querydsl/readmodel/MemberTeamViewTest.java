@@ -0,0 +1,178 @@
+package study.querydsl.readmodel;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.repository.MemberJpaRepository;
+import study.querydsl.repository.MemberRepository;
+import study.querydsl.support.QueryBudget;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.read-model.enabled=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=100", // 운영 설정처럼 회원 insert 를 배치로 묶는다.
+        "spring.datasource.url=jdbc:h2:mem:read-model;DB_CLOSE_DELAY=-1" // 설정이 다른 컨텍스트는 DB 를 따로 쓴다.
+})
+@Transactional
+class MemberTeamViewTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTeamViewConsistencyChecker checker;
+
+    Team teamA;
+    Team teamB;
+    Member member1;
+    Member member4;
+
+    @BeforeEach
+    public void before(){
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        member1 = new Member("member1", 10, teamA);
+        em.persist(member1);
+        em.persist(new Member("member2", 20, teamA));
+        em.persist(new Member("member3", 30, teamB));
+        member4 = new Member("member4", 40, teamB);
+        em.persist(member4);
+        em.persist(new Member("noTeam", 50));
+        em.flush();
+        em.clear();
+    }
+
+    @Test // 새 회원은 flush 가 끝날 때 배치 insert 한번으로 넣는다. ( 회원마다 update + insert X ) 새 팀은 읽기 모델을 건드리지 않는다.
+    public void persistIsBatchedPerFlush(){
+        QueryBudget.assertMaxDml(3, () -> { // 팀 insert + 회원 insert 배치 + 읽기 모델 insert 배치
+            Team teamC = new Team("teamC");
+            em.persist(teamC);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("batch" + i, i, teamC));
+            }
+            em.flush();
+        });
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_team_view where team_name = 'teamC'", Long.class))
+                .isEqualTo(10);
+    }
+
+    @Test // 같은 flush 에서 저장하고 삭제한 회원은 읽기 모델에 남지 않는다.
+    public void persistAndRemoveInSameFlush(){
+        Member temp = new Member("temp", 1, em.getReference(Team.class, teamA.getId()));
+        em.persist(temp);
+        em.remove(temp);
+        em.flush();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_team_view where username = 'temp'", Long.class))
+                .isZero();
+    }
+
+    @Test
+    public void maintainedByEntityEvents(){
+        assertThat(viewRow(member1.getId())).containsEntry("TEAM_NAME", "teamA").containsEntry("AGE", 10);
+        assertThat(viewRow(findNoTeamId())).containsEntry("TEAM_ID", null);
+
+        // 회원 수정 + 팀 이동 ( 팀은 프록시 )
+        Member m1 = em.find(Member.class, member1.getId());
+        m1.setAge(11);
+        m1.setTeam(em.getReference(Team.class, teamB.getId()));
+        em.flush();
+        assertThat(viewRow(member1.getId())).containsEntry("AGE", 11).containsEntry("TEAM_NAME", "teamB");
+
+        // 팀 이름 변경
+        em.find(Team.class, teamB.getId()).setName("renamed");
+        em.flush();
+        assertThat(jdbcTemplate.queryForList("select team_name from member_team_view where team_id = ?", String.class, teamB.getId()))
+                .containsOnly("renamed").hasSize(3);
+
+        // 회원 삭제
+        em.remove(em.find(Member.class, member4.getId()));
+        em.flush();
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_team_view where member_id = ?", Long.class, member4.getId()))
+                .isZero();
+
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    public void bulkMoveToTeam(){
+        memberJpaRepository.moveToTeam(List.of(member1.getId(), member4.getId()), teamB.getId());
+        assertThat(viewRow(member1.getId())).containsEntry("TEAM_NAME", "teamB");
+        assertThat(checker.check().isConsistent()).isTrue();
+    }
+
+    @Test
+    public void searchUsesReadModel(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeGoe(15);
+        condition.setAgeLoe(45);
+        condition.setTeamName("teamB");
+
+        // 리스너를 타지 않는 JDBC 수정은 읽기 모델에만 보인다. ( 조인 대신 읽기 모델을 검색하는지 확인 )
+        jdbcTemplate.update("update member_team_view set username = 'fromView' where member_id = ?", member4.getId());
+
+        List<MemberTeamDto> result = memberRepository.search(condition);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("member3", "fromView");
+
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 1));
+        assertThat(page.getContent()).hasSize(1);
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+    @Test
+    public void sortByTeamNameAndAge(){
+        // 읽기 모델은 ( team_name, age ) 인덱스가 있어서 teamName 정렬을 허용한다.
+        Page<MemberTeamDto> page = memberRepository.searchPageSimple(new MemberSearchCondition(),
+                PageRequest.of(0, 3, Sort.by(Sort.Order.desc("teamName"), Sort.Order.desc("age"))));
+        assertThat(page.getContent()).extracting("username").containsExactly("member4", "member3", "member2");
+    }
+
+    @Test
+    public void checkAndRepair(){
+        jdbcTemplate.update("update member_team_view set team_name = 'stale' where member_id = ?", member1.getId());
+        jdbcTemplate.update("delete from member_team_view where member_id = ?", member4.getId());
+        jdbcTemplate.update("insert into member_team_view (member_id, username, age) values (-1, 'ghost', 1)");
+
+        MemberTeamViewConsistencyChecker.Report report = checker.check();
+        assertThat(report.mismatched()).isEqualTo(1);
+        assertThat(report.missing()).isEqualTo(1);
+        assertThat(report.orphaned()).isEqualTo(1);
+
+        checker.repair();
+        assertThat(checker.check().isConsistent()).isTrue();
+        assertThat(viewRow(member1.getId())).containsEntry("TEAM_NAME", "teamA");
+    }
+
+    private Long findNoTeamId() {
+        return jdbcTemplate.queryForObject("select member_id from member where username = 'noTeam'", Long.class);
+    }
+
+    private Map<String, Object> viewRow(Long memberId) {
+        return jdbcTemplate.queryForMap("select * from member_team_view where member_id = ?", memberId);
+    }
+}
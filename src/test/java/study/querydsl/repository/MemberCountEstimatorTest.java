@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "member.count.estimate.threshold=5",
+        "spring.datasource.url=jdbc:h2:mem:count-estimate;DB_CLOSE_DELAY=-1" // 설정이 다른 컨텍스트는 DB 를 따로 쓴다.
+})
+@Transactional
+class MemberCountEstimatorTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberCountEstimator memberCountEstimator;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + i, 10 + i, i < 15 ? teamA : teamB)); // 나이 10 ~ 29
+        }
+        em.flush();
+        memberCountEstimator.refresh();
+    }
+
+    @Test
+    public void estimate(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThat(memberCountEstimator.estimate(condition)).hasValue(20);
+
+        condition.setTeamName("teamA");
+        assertThat(memberCountEstimator.estimate(condition)).hasValue(15);
+
+        // 10 ~ 19 구간의 절반 + 20 ~ 29 구간 전체
+        condition.setTeamName(null);
+        condition.setAgeGoe(15);
+        assertThat(memberCountEstimator.estimate(condition)).hasValue(15);
+
+        condition.setUsername("member1"); // 이름 조건은 추정하지 않는다.
+        assertThat(memberCountEstimator.estimate(condition)).isEmpty();
+    }
+
+    @Test
+    public void largeResultIsApproximate(){
+        Page<MemberTeamDto> complex = memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, 3));
+        Page<MemberTeamDto> simple = memberRepository.searchPageSimple(new MemberSearchCondition(), PageRequest.of(0, 3));
+
+        assertThat(complex).isInstanceOf(ApproximatePage.class);
+        assertThat(simple).isInstanceOf(ApproximatePage.class);
+        assertThat(complex.getTotalElements()).isEqualTo(20);
+        assertThat(complex.getContent()).hasSize(3);
+    }
+
+    @Test
+    public void smallResultIsExact(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamB"); // 5명 미만으로 추정되지는 않지만 한페이지에 다 들어온다.
+        Page<MemberTeamDto> page = memberRepository.searchPageComplex(condition, PageRequest.of(0, 10));
+        assertThat(page).isNotInstanceOf(ApproximatePage.class);
+        assertThat(page.getTotalElements()).isEqualTo(5);
+
+        condition.setTeamName(null);
+        condition.setAgeGoe(27); // 추정치 3 < threshold
+        Page<MemberTeamDto> small = memberRepository.searchPageSimple(condition, PageRequest.of(0, 2));
+        assertThat(small).isNotInstanceOf(ApproximatePage.class);
+        assertThat(small.getTotalElements()).isEqualTo(3);
+    }
+
+    @Test // 종료된 뒤에는 통계를 다시 집계하지 않고 지금 통계를 그대로 사용한다.
+    public void estimateAfterShutdown(){
+        MemberCountEstimator estimator = new MemberCountEstimator(em, true, 5, 0);
+        estimator.shutdown();
+
+        assertThat(estimator.estimate(new MemberSearchCondition())).isEmpty();
+        estimator.refresh();
+        assertThat(estimator.estimate(new MemberSearchCondition())).hasValue(20);
+    }
+}
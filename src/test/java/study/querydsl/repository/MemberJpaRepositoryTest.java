@@ -1,18 +1,32 @@
 package study.querydsl.repository;
 
 import jakarta.persistence.EntityManager;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataAccessException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamNearCache;
+import study.querydsl.deadline.Deadline;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.Team;
+import study.querydsl.support.MaxQueries;
+import study.querydsl.support.QueryBudget;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 
 @SpringBootTest
@@ -25,6 +39,12 @@ class MemberJpaRepositoryTest {
     @Autowired
     MemberJpaRepository memberJpaRepository;
 
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTeamNearCache nearCache;
+
     @Test
     public void basicTest(){
         Member member = new Member("member1", 10);
@@ -58,6 +78,7 @@ class MemberJpaRepositoryTest {
     }
 
     @Test
+    @MaxQueries(1)
     public void searchTest(){
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -88,6 +109,7 @@ class MemberJpaRepositoryTest {
 
 
     @Test
+    @MaxQueries(1)
     public void searchTest2(){
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -117,4 +139,197 @@ class MemberJpaRepositoryTest {
     }
 
 
+    @Test // 조회 전용 쿼리로 가져온 엔티티는 스냅샷이 없고 변경감지 대상이 아니다.
+    public void readOnlyQueryTest(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 20, teamA));
+        em.flush();
+        em.clear();
+
+        List<Member> result = memberJpaRepository.findAll_QueryDSL();
+
+        Session session = em.unwrap(Session.class);
+        assertThat(result).hasSize(2);
+        assertThat(result).allMatch(session::isReadOnly);
+
+        result.get(0).setAge(99);
+        em.flush();
+        em.clear();
+        assertThat(memberJpaRepository.findById(result.get(0).getId()).get().getAge()).isNotEqualTo(99);
+    }
+
+    @Test // IN 청크 크기보다 많은 id 조회
+    @MaxQueries(3) // IN 청크 ( 512개 ) 당 한번
+    public void findAllByIdsAsDtoTest(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 1100; i++) {
+            Member member = new Member("member" + i, i % 100, teamA);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        List<Long> request = new ArrayList<>(ids);
+        Collections.reverse(request);
+        request.add(-1L); // 없는 id
+        request.add(ids.get(0)); // 중복 id
+
+        List<MemberTeamDto> result = memberJpaRepository.findAllByIdsAsDto(request);
+
+        assertThat(result).hasSize(1100);
+        assertThat(result.get(0).getMemberId()).isEqualTo(ids.get(1099));
+        assertThat(result.get(1099).getMemberId()).isEqualTo(ids.get(0));
+        assertThat(result).extracting("teamName").containsOnly("teamA");
+    }
+
+    @Test // 청크가 PARALLEL_CHUNK_THRESHOLD 보다 많고 트랜잭션 밖이면 여러 커넥션으로 나누어 조회한다.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findAllByIdsAsDtoParallelTest(){
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        List<Long> ids = transactionTemplate.execute(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            List<Long> saved = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                Member member = new Member("member" + i, i, teamA);
+                em.persist(member);
+                saved.add(member.getId());
+            }
+            return saved;
+        });
+        try {
+            List<Long> request = new ArrayList<>();
+            for (long i = 1; i <= 2500; i++) {
+                request.add(-i); // 없는 id ( 니어 캐시에도 없다. ) 로 청크 수를 늘린다.
+            }
+            request.add(ids.get(2));
+            request.add(ids.get(0));
+            request.add(ids.get(1));
+
+            List<MemberTeamDto> result = QueryBudget.assertMaxQueries(5, () -> memberJpaRepository.findAllByIdsAsDto(request));
+
+            assertThat(result).extracting(MemberTeamDto::getMemberId).containsExactly(ids.get(2), ids.get(0), ids.get(1));
+        } finally {
+            transactionTemplate.executeWithoutResult(status -> {
+                em.createQuery("DELETE FROM Member m").executeUpdate();
+                em.createQuery("DELETE FROM Team t").executeUpdate();
+            });
+            nearCache.clear();
+        }
+    }
+
+    @Test // 병렬 청크 조회가 실패하면 CompletionException 이 아니라 변환된 원래 예외를 던진다.
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void findAllByIdsAsDtoParallelFailureTest() throws Exception {
+        List<Long> request = new ArrayList<>();
+        for (long i = 1; i <= 2600; i++) {
+            request.add(-i);
+        }
+
+        try (Deadline deadline = Deadline.after(Duration.ZERO)) { // 기한이 지나서 모든 청크가 실행 전에 실패한다.
+            assertThatThrownBy(() -> deadline.call(() -> memberJpaRepository.findAllByIdsAsDto(request)))
+                    .isInstanceOf(DataAccessException.class);
+        }
+    }
+
+    @Test // 대량 팀 이동 시 Team.members 컬렉션을 초기화하지 않는다.
+    public void moveToTeamTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 600; i++) {
+            Member member = new Member("member" + i, i % 100);
+            member.setTeam(teamA);
+            em.persist(member);
+            ids.add(member.getId());
+        }
+        em.flush();
+        em.clear();
+
+        Team source = em.find(Team.class, teamA.getId());
+        Team target = em.find(Team.class, teamB.getId());
+        Member loaded = em.find(Member.class, ids.get(0)); // 영속성 컨텍스트에 로딩된 회원
+
+        // 회원마다 update 하지 않는다. ( 로딩된 회원 update + 읽기 모델 / 나머지 회원 IN 2청크 / 읽기 모델 배치 1번 )
+        long moved = QueryBudget.assertMaxQueries(0, () ->
+                QueryBudget.assertMaxDml(5, () -> memberJpaRepository.moveToTeam(ids.subList(0, 550), teamB.getId())));
+
+        assertThat(moved).isEqualTo(550);
+        assertThat(Hibernate.isInitialized(source.getMembers())).isFalse();
+        assertThat(Hibernate.isInitialized(target.getMembers())).isFalse();
+        assertThat(loaded.getTeam().getId()).isEqualTo(teamB.getId());
+
+        em.flush();
+        em.clear();
+        assertThat(countByTeam(teamB)).isEqualTo(550);
+        assertThat(countByTeam(teamA)).isEqualTo(50);
+    }
+
+    @Test // 이미 초기화된 컬렉션은 메모리에서 맞춰준다.
+    public void moveToTeamInitializedCollectionTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamA);
+        Member member3 = new Member("member3", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.flush();
+        em.clear();
+
+        Team source = em.find(Team.class, teamA.getId());
+        Team target = em.find(Team.class, teamB.getId());
+        assertThat(source.getMembers()).hasSize(2); // 초기화
+        assertThat(target.getMembers()).hasSize(1); // 초기화
+
+        memberJpaRepository.moveToTeam(List.of(member1.getId()), teamB.getId());
+
+        assertThat(source.getMembers()).extracting("id").containsExactly(member2.getId());
+        assertThat(target.getMembers()).extracting("id").containsExactlyInAnyOrder(member1.getId(), member3.getId());
+    }
+
+    @Test // 이미 대상 팀에 있는 회원은 옮긴 수에 세지 않는다. ( 로딩된 회원 / 벌크 update 모두 )
+    public void moveToTeamCountsChangedOnlyTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        Member member2 = new Member("member2", 20, teamB);
+        Member member3 = new Member("member3", 30, teamB);
+        Member member4 = new Member("member4", 40);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+        em.flush();
+        em.clear();
+
+        em.find(Member.class, member2.getId()); // 로딩된 회원 ( 이미 teamB )
+        List<Long> ids = List.of(member1.getId(), member2.getId(), member3.getId(), member4.getId());
+
+        assertThat(memberJpaRepository.moveToTeam(ids, teamB.getId())).isEqualTo(2);
+        assertThat(memberJpaRepository.moveToTeam(ids, teamB.getId())).isZero();
+
+        em.flush();
+        em.clear();
+        assertThat(countByTeam(teamB)).isEqualTo(4);
+    }
+
+    private Long countByTeam(Team team){
+        return em.createQuery("SELECT count(m) FROM Member m WHERE m.team.id = :teamId", Long.class)
+                .setParameter("teamId", team.getId())
+                .getSingleResult();
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,118 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 구간마다 별도 커넥션에서 조회하므로 테스트 데이터를 커밋해야 보인다. ( @Transactional 사용X )
+@SpringBootTest
+class MemberParallelExporterTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    TransactionTemplate transactionTemplate;
+    MemberParallelExporter exporter;
+
+    @BeforeEach
+    public void before(){
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 구간이 여러개 나오도록 폭을 작게 준다.
+        exporter = new MemberParallelExporter(queryFactory, 3, 4);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 50; i++) {
+                em.persist(new Member("member" + i, i, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        exporter.shutdown();
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    public void exportAllInOrder(){
+        List<MemberTeamDto> rows = new ArrayList<>();
+        long count = exporter.export(new MemberSearchCondition(), rows::addAll);
+
+        assertThat(count).isEqualTo(50);
+        assertThat(rows).extracting("memberId").isSorted().doesNotHaveDuplicates();
+        assertThat(rows).extracting("age").containsExactlyElementsOf(
+                IntStream.range(0, 50).boxed().toList());
+    }
+
+    @Test
+    public void exportWithCondition(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(40);
+
+        List<MemberTeamDto> rows = new ArrayList<>();
+        long count = exporter.export(condition, rows::addAll);
+
+        assertThat(count).isEqualTo(5);
+        assertThat(rows).extracting("username").containsExactly("member40", "member42", "member44", "member46", "member48");
+        assertThat(rows).extracting("teamName").containsOnly("teamA");
+    }
+
+    // id 가 듬성듬성해도 ( 시퀀스 값을 직접 쓰는 등 ) 구간은 id 폭이 아니라 회원 수로 나눈다.
+    @Test
+    public void sparseIds(){
+        long maxId = jdbcTemplate.queryForObject("select max(member_id) from member", Long.class);
+        for (int i = 1; i <= 10; i++) {
+            jdbcTemplate.update("insert into member (member_id, username, age) values (?, ?, ?)", maxId + i * 1000L, "sparse" + i, 100 + i);
+        }
+
+        List<Integer> batchSizes = new ArrayList<>();
+        long count = exporter.export(new MemberSearchCondition(), rows -> batchSizes.add(rows.size()));
+
+        assertThat(count).isEqualTo(60);
+        assertThat(batchSizes).hasSize(15).containsOnly(4);
+    }
+
+    // 콜백이 실패하면 예외를 그대로 던지고 나머지 구간은 취소한다. ( 다음 익스포트는 정상 )
+    @Test
+    public void callbackFailureCancelsRemaining(){
+        assertThatThrownBy(() -> exporter.export(new MemberSearchCondition(), rows -> {
+            throw new IllegalStateException("write failed");
+        })).hasMessage("write failed");
+
+        assertThat(exporter.export(new MemberSearchCondition(), rows -> { })).isEqualTo(50);
+    }
+}
@@ -0,0 +1,88 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+
+// 10만건 엔티티 조회 시 readOnly 힌트가 아끼는 힙/CPU 비교
+// 오래 걸리므로 기본 test 태스크에서는 제외하고 ./gradlew benchmark 로 실행한다.
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class MemberReadOnlyQueryBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 100_000;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @BeforeEach
+    public void before(){
+        Team team = new Team("teamA");
+        em.persist(team);
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Member m = new Member("member" + i, i % 100);
+            m.setTeam(team);
+            em.persist(m);
+            if (i % 1000 == 0) {
+                em.flush();
+                em.clear();
+                team = em.getReference(Team.class, team.getId());
+            }
+        }
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void readOnlyVsManaged(){
+        // 워밍업
+        measure("warm-up", () -> queryFactory.selectFrom(member).fetch());
+        measure("warm-up", memberJpaRepository::findAll_QueryDSL);
+
+        long managed = measure("managed", () -> queryFactory.selectFrom(member).fetch());
+        long readOnly = measure("readOnly", memberJpaRepository::findAll_QueryDSL);
+
+        assertThat(readOnly).isLessThan(managed);
+    }
+
+    // 영속성 컨텍스트가 결과를 들고 있는 상태에서의 힙 사용량을 반환한다.
+    private long measure(String name, Supplier<List<Member>> query) {
+        long before = usedHeap();
+        long start = System.nanoTime();
+        List<Member> result = query.get();
+        em.flush(); // 변경감지 비용 ( 스냅샷 비교 )
+        long elapsed = System.nanoTime() - start;
+        long heap = usedHeap() - before;
+
+        System.out.println(name + " : rows = " + result.size()
+                + ", heap = " + heap / 1024 / 1024 + "MB, time = " + elapsed / 1_000_000 + "ms");
+        em.clear();
+        return heap;
+    }
+
+    private long usedHeap() {
+        System.gc();
+        Runtime runtime = Runtime.getRuntime();
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
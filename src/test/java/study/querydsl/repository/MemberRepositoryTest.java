@@ -6,16 +6,22 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
 import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberRankDto;
 import study.querydsl.dto.MemberSearchCondition;
 import study.querydsl.dto.MemberTeamDto;
 import study.querydsl.entity.Member;
 import study.querydsl.entity.QMember;
 import study.querydsl.entity.Team;
+import study.querydsl.support.MaxQueries;
 
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.*;
 import static study.querydsl.entity.QMember.member;
 
@@ -45,6 +51,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @MaxQueries(1)
     public void searchTest(){
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -74,6 +81,7 @@ class MemberRepositoryTest {
     }
 
     @Test
+    @MaxQueries(2) // 컨텐츠 + 카운트
     public void searchPageSimpleTest(){
         Team teamA = new Team("teamA");
         Team teamB = new Team("teamB");
@@ -128,5 +136,107 @@ class MemberRepositoryTest {
         }
     }
 
+    @Test
+    @MaxQueries(8)
+    public void searchPageSortTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 20, teamA);
+        Member member2 = new Member("member2", 10, teamA);
+        Member member3 = new Member("member3", 20, teamB);
+        Member member4 = new Member("member4", 30, teamB);
+        em.persist(member1);
+        em.persist(member2);
+        em.persist(member3);
+        em.persist(member4);
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+
+        // 같은 나이는 id 순서 ( 정렬 방향과 같은 방향 )
+        Page<MemberTeamDto> ageDesc = memberRepository.searchPageComplex(condition, PageRequest.of(0, 3, Sort.by(Sort.Order.desc("age"))));
+        assertThat(ageDesc.getContent()).extracting("username").containsExactly("member4", "member3", "member1");
+
+        Page<MemberTeamDto> ageAsc = memberRepository.searchPageSimple(condition, PageRequest.of(0, 4, Sort.by("age", "id")));
+        assertThat(ageAsc.getContent()).extracting("username").containsExactly("member2", "member1", "member3", "member4");
+
+        Page<MemberTeamDto> idDesc = memberRepository.searchPageSimple(condition, PageRequest.of(0, 2, Sort.by(Sort.Order.desc("memberId"))));
+        assertThat(idDesc.getContent()).extracting("username").containsExactly("member4", "member3");
+
+        // 한 팀만 조회하면 teamName 정렬은 의미가 없으므로 뺀다.
+        condition.setTeamName("teamB");
+        Page<MemberTeamDto> oneTeam = memberRepository.searchPageComplex(condition, PageRequest.of(0, 2, Sort.by("teamName", "username")));
+        assertThat(oneTeam.getContent()).extracting("username").containsExactly("member3", "member4");
+    }
+
+    @Test
+    @MaxQueries(0) // 정렬 검사는 쿼리 전에 한다.
+    public void searchPageUnsupportedSortTest(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThatThrownBy(() -> memberRepository.searchPageComplex(condition, PageRequest.of(0, 3, Sort.by("password"))))
+                .isInstanceOf(UnsupportedSortException.class);
+        // 인덱스 하나로 처리할 수 없는 정렬
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3, Sort.by("age", "username"))))
+                .isInstanceOf(UnsupportedSortException.class);
+        assertThatThrownBy(() -> memberRepository.searchPageSimple(condition, PageRequest.of(0, 3, Sort.by("teamName"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    @Test
+    @MaxQueries(3) // 카운트 쿼리 없이 페이지마다 한번
+    public void searchSliceTest(){
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+        for (int i = 1; i <= 5; i++) {
+            em.persist(new Member("member" + i, i * 10, teamA));
+        }
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+
+        Slice<MemberTeamDto> first = memberRepository.searchSlice(condition, PageRequest.of(0, 2, Sort.by(Sort.Order.desc("age"))));
+        assertThat(first.getContent()).extracting("username").containsExactly("member5", "member4");
+        assertThat(first.hasNext()).isTrue();
+
+        Slice<MemberTeamDto> last = memberRepository.searchSlice(condition, first.nextPageable().next());
+        assertThat(last.getContent()).extracting("username").containsExactly("member1");
+        assertThat(last.hasNext()).isFalse();
 
-}
\ No newline at end of file
+        // 마지막 페이지가 딱 맞게 찬 경우
+        Slice<MemberTeamDto> exact = memberRepository.searchSlice(condition, PageRequest.of(0, 5));
+        assertThat(exact.getNumberOfElements()).isEqualTo(5);
+        assertThat(exact.hasNext()).isFalse();
+    }
+
+    @Test
+    @MaxQueries(1) // 팀 평균을 상관 서브쿼리 없이 윈도우 함수로 계산
+    public void searchRankingTest(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        em.persist(new Member("member2", 25, teamA));
+        em.persist(new Member("member3", 25, teamA));
+        em.persist(new Member("member4", 30, teamB));
+        em.persist(new Member("member5", 50, teamB));
+        em.persist(new Member("member6", 70, teamB));
+        em.persist(new Member("member7", 40, teamB));
+
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setAgeLoe(60);
+        List<MemberRankDto> result = memberRepository.searchRanking(condition);
+
+        // 같은 나이는 같은 순위, 순위와 평균은 검색 조건에 맞는 회원 ( member6 제외 ) 안에서 계산한다.
+        assertThat(result)
+                .extracting(MemberRankDto::getUsername, MemberRankDto::getTeamRank, MemberRankDto::getAgeDeviation)
+                .containsExactly(
+                        tuple("member2", 1L, 5.0),
+                        tuple("member3", 1L, 5.0),
+                        tuple("member1", 3L, -10.0),
+                        tuple("member5", 1L, 10.0),
+                        tuple("member7", 2L, 0.0),
+                        tuple("member4", 3L, -10.0));
+    }
+}
@@ -0,0 +1,95 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// StatelessSession 은 별도 커넥션을 사용하므로 테스트 데이터를 커밋해야 보인다. ( @Transactional 사용X )
+@SpringBootTest
+class MemberScannerTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberScanner memberScanner;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before(){
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            Team teamB = new Team("teamB");
+            em.persist(teamA);
+            em.persist(teamB);
+            for (int i = 0; i < 10; i++) {
+                em.persist(new Member("member" + i, i * 10, i % 2 == 0 ? teamA : teamB));
+            }
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    public void scanAll(){
+        List<String> usernames = new ArrayList<>();
+        long count = memberScanner.scan(new MemberSearchCondition(), m -> usernames.add(m.getUsername()));
+
+        assertThat(count).isEqualTo(10);
+        assertThat(usernames).hasSize(10);
+    }
+
+    @Test
+    public void scanWithCondition(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        condition.setTeamName("teamA");
+        condition.setAgeGoe(20);
+
+        List<String> teamNames = new ArrayList<>();
+        List<String> usernames = new ArrayList<>();
+        List<Long> ids = new ArrayList<>();
+        memberScanner.scan(condition, m -> {
+            ids.add(m.getId());
+            usernames.add(m.getUsername());
+            teamNames.add(m.getTeam().getName()); // 페치조인이라 StatelessSession 이 닫혀도 접근 가능
+        });
+
+        // id 순서로 읽는다. ( id 는 시퀀스 블록 단위로 받으므로 저장한 순서와 같다고 가정하지 않는다. )
+        assertThat(ids).isSorted();
+        assertThat(usernames).containsExactlyInAnyOrder("member2", "member4", "member6", "member8");
+        assertThat(teamNames).containsOnly("teamA");
+    }
+
+    @Test
+    public void scanChunks(){
+        List<Integer> chunkSizes = new ArrayList<>();
+        long count = memberScanner.scanChunks(new MemberSearchCondition(), 4, chunk -> chunkSizes.add(chunk.size()));
+
+        assertThat(count).isEqualTo(10);
+        assertThat(chunkSizes).containsExactly(4, 4, 2);
+    }
+}
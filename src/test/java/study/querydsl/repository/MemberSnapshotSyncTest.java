@@ -0,0 +1,157 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+import study.querydsl.repository.MemberSnapshotSync.Result;
+import study.querydsl.repository.MemberSnapshotSync.Row;
+import study.querydsl.support.QueryBudget;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+@SpringBootTest
+@Transactional
+class MemberSnapshotSyncTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberTeamCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    MemberTeamViewUpdater memberTeamViewUpdater;
+
+    MemberSnapshotSync sync;
+    Team teamA;
+    Team teamB;
+
+    @BeforeEach
+    public void before(){
+        // 배치를 여러개로 나누어 실행하도록 작게 준다. ( 배치 트랜잭션은 테스트 트랜잭션에 참여한다. )
+        sync = new MemberSnapshotSync(em, jdbcTemplate, transactionManager, cacheInvalidator, memberTeamViewUpdater, 2);
+        teamA = new Team("teamA");
+        teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        Member member1 = new Member("member1", 10, teamA);
+        member1.setExternalId("e1");
+        em.persist(member1);
+        em.persist(new Member("local", 99, teamB)); // 상위 시스템과 상관없는 회원 ( external_id 없음 )
+        em.flush();
+        em.clear();
+    }
+
+    @Test
+    public void syncTest(){
+        List<Row> snapshot = List.of(
+                new Row("e1", "member1", 10, "teamA"),
+                new Row("e2", "member2", 20, "teamA"),
+                new Row("e3", "member3", 30, "teamB"));
+
+        assertThat(sync.sync(snapshot)).isEqualTo(new Result(2, 0, 1));
+        // 같은 스냅샷을 다시 보내면 아무것도 바뀌지 않는다.
+        assertThat(sync.sync(snapshot)).isEqualTo(new Result(0, 0, 3));
+
+        List<Row> changed = List.of(
+                new Row("e1", "member1", 10, "teamA"),
+                new Row("e2", "member2", 21, "teamA"),
+                new Row("e3", "member3-renamed", 30, "teamB"));
+        assertThat(sync.sync(changed)).isEqualTo(new Result(0, 2, 1));
+
+        em.clear();
+        assertThat(em.createQuery("select m from Member m where m.externalId is not null order by m.externalId", Member.class).getResultList())
+                .extracting(Member::getExternalId, Member::getUsername, Member::getAge, m -> m.getTeam().getName())
+                .containsExactly(
+                        tuple("e1", "member1", 10, "teamA"),
+                        tuple("e2", "member2", 21, "teamA"),
+                        tuple("e3", "member3-renamed", 30, "teamB"));
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member", Long.class)).isEqualTo(4);
+        assertThat(jdbcTemplate.queryForObject("select count(*) from member_sync_stage", Long.class)).isZero();
+    }
+
+    @Test // 팀 외래키 : 이름으로 찾고, 없는 팀이면 지금 팀을 유지한다.
+    public void teamTest(){
+        assertThat(sync.sync(List.of(new Row("e1", "member1", 10, "teamX")))).isEqualTo(new Result(0, 0, 1));
+        assertThat(teamNameOf("e1")).isEqualTo("teamA");
+
+        assertThat(sync.sync(List.of(new Row("e1", "member1", 10, "teamB")))).isEqualTo(new Result(0, 1, 0));
+        assertThat(teamNameOf("e1")).isEqualTo("teamB");
+
+        assertThat(sync.sync(List.of(new Row("e1", "member1", 10, null)))).isEqualTo(new Result(0, 1, 0));
+        assertThat(teamNameOf("e1")).isNull();
+
+        // 새 회원은 없는 팀이면 팀 없이 만든다.
+        assertThat(sync.sync(List.of(new Row("e9", "member9", 90, "teamX")))).isEqualTo(new Result(1, 0, 0));
+        assertThat(teamNameOf("e9")).isNull();
+    }
+
+    @Test // 읽기 모델도 MERGE 결과로 갱신한다.
+    public void readModelTest(){
+        sync.sync(List.of(new Row("e1", "member1", 11, "teamB"), new Row("e2", "member2", 20, "teamA")));
+
+        List<String> rows = jdbcTemplate.queryForList(
+                "select v.username || ':' || v.age || ':' || v.team_name from member_team_view v" +
+                " join member m on m.member_id = v.member_id where m.external_id is not null order by m.external_id", String.class);
+        assertThat(rows).containsExactly("member1:11:teamB", "member2:20:teamA");
+    }
+
+    @Test // 같은 externalId 는 마지막 행을 사용한다.
+    public void duplicateTest(){
+        Result result = sync.sync(List.of(
+                new Row("e2", "first", 20, "teamA"),
+                new Row("e2", "last", 21, "teamB")));
+
+        assertThat(result).isEqualTo(new Result(1, 0, 0));
+        em.clear();
+        Member member = em.createQuery("select m from Member m where m.externalId = 'e2'", Member.class).getSingleResult();
+        assertThat(member.getUsername()).isEqualTo("last");
+        assertThat(member.getTeam().getName()).isEqualTo("teamB");
+    }
+
+    @Test // 배치마다 MERGE 한번 + 바뀐 회원 인덱싱용 조회 한번 ( 회원마다 조회하지 않는다. )
+    public void queryCountTest(){
+        List<Row> snapshot = List.of(
+                new Row("e1", "member1", 10, "teamA"),
+                new Row("e2", "member2", 20, "teamA"),
+                new Row("e3", "member3", 30, "teamB"),
+                new Row("e4", "member4", 40, "teamB"),
+                new Row("e5", "member5", 50, "teamB"));
+
+        Result result = QueryBudget.assertMaxQueries(6, () -> sync.sync(snapshot));
+        assertThat(result).isEqualTo(new Result(4, 0, 1));
+    }
+
+    @Test
+    public void noExternalIdTest(){
+        assertThatThrownBy(() -> sync.sync(List.of(new Row(null, "member1", 10, "teamA"))))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private String teamNameOf(String externalId){
+        em.clear();
+        Member member = em.createQuery("select m from Member m left join fetch m.team where m.externalId = :externalId", Member.class)
+                .setParameter("externalId", externalId)
+                .getSingleResult();
+        return member.getTeam() != null ? member.getTeam().getName() : null;
+    }
+}
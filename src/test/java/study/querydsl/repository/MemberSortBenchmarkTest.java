@@ -0,0 +1,125 @@
+package study.querydsl.repository;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 20만건에서 인덱스 순서로 읽는 정렬 ( age, id ), 인덱스 방향과 반대라서 top-N 정렬하는 경우 ( H2 는 역방향 인덱스 스캔을 하지 않는다. ),
+// 인덱스 없는 정렬 ( team.name ) 의 첫 페이지 비교
+// 오래 걸리므로 기본 test 태스크에서는 제외하고 ./gradlew benchmark 로 실행한다.
+@Tag("benchmark")
+@SpringBootTest
+@Transactional
+class MemberSortBenchmarkTest {
+
+    private static final int MEMBER_COUNT = 200_000;
+    private static final int PAGE_SIZE = 20;
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @BeforeEach
+    public void before(){
+        Team[] teams = {new Team("teamA"), new Team("teamB"), new Team("teamC")};
+        for (Team t : teams) {
+            em.persist(t);
+        }
+        for (int i = 0; i < MEMBER_COUNT; i++) {
+            Member m = new Member("member" + (i * 7919 % MEMBER_COUNT), i % 100);
+            m.setTeam(em.getReference(Team.class, teams[i % teams.length].getId()));
+            em.persist(m);
+            if (i % 1000 == 0) {
+                em.flush();
+                em.clear();
+            }
+        }
+        em.flush();
+        em.clear();
+        jdbcTemplate.execute("analyze");
+        jdbcTemplate.execute("SET OPTIMIZE_REUSE_RESULTS 0"); // 같은 쿼리의 결과를 재사용하지 않게 한다.
+    }
+
+    @Test
+    public void indexedVsNonIndexedSort(){
+        Supplier<List<?>> indexed = () -> queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(MemberSortSupport.orderBy(Sort.by("age"), new MemberSearchCondition()))
+                .limit(PAGE_SIZE)
+                .fetch();
+        Supplier<List<?>> topN = () -> queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(MemberSortSupport.orderBy(Sort.by(Sort.Order.desc("age")), new MemberSearchCondition()))
+                .limit(PAGE_SIZE)
+                .fetch();
+        Supplier<List<?>> nonIndexed = () -> queryFactory
+                .select(member.id)
+                .from(member)
+                .leftJoin(member.team, team)
+                .orderBy(team.name.asc(), member.age.asc())
+                .limit(PAGE_SIZE)
+                .fetch();
+
+        measure("warm-up", indexed);
+        measure("warm-up", topN);
+        measure("warm-up", nonIndexed);
+        long indexedTime = measure("indexed ( age asc, id asc : index order )", indexed);
+        long topNTime = measure("top-N ( age desc, id desc : bounded sort )", topN);
+        long nonIndexedTime = measure("non-indexed ( team.name asc, age asc )", nonIndexed);
+
+        explain("select m.member_id from member m order by m.age, m.member_id limit 20");
+        explain("select m.member_id from member m order by m.age desc, m.member_id desc limit 20");
+        explain("select m.member_id from member m left join team t on t.team_id = m.team_id order by t.name, m.age limit 20");
+
+        // 화이트리스트를 통과한 페이지 조회
+        assertThat(memberRepository.searchPageComplex(new MemberSearchCondition(), PageRequest.of(0, PAGE_SIZE, Sort.by("age"))).getContent())
+                .hasSize(PAGE_SIZE);
+        assertThat(indexedTime).isLessThan(nonIndexedTime);
+        assertThat(topNTime).isLessThanOrEqualTo(nonIndexedTime * 2);
+    }
+
+    private long measure(String name, Supplier<List<?>> query) {
+        long best = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            long start = System.nanoTime();
+            assertThat(query.get()).hasSize(PAGE_SIZE);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.println(name + " : best of 5 = " + best / 1_000 + "us");
+        return best;
+    }
+
+    private void explain(String sql) {
+        System.out.println(jdbcTemplate.queryForObject("explain " + sql, String.class));
+    }
+}
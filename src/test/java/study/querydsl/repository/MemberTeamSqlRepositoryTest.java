@@ -0,0 +1,99 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.transaction.annotation.Transactional;
+import study.querydsl.dto.MemberSearchCondition;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// 네이티브 SQL 검색과 QueryDSL 검색 ( member.search.native-sql.enabled=false ) 의 결과가 같은지 비교한다.
+@SpringBootTest
+@Transactional
+class MemberTeamSqlRepositoryTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberTeamSqlRepository memberTeamSqlRepository;
+
+    @BeforeEach
+    public void before(){
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        for (int i = 0; i < 20; i++) {
+            em.persist(new Member("member" + (i % 7), i * 5, i % 2 == 0 ? teamA : teamB));
+        }
+        em.persist(new Member("noTeam", 30)); // 팀이 없는 회원 ( left join )
+        // flush 하지 않는다. 네이티브 SQL 도 아직 반영되지 않은 변경을 봐야 한다.
+    }
+
+    @Test
+    public void searchParity(){
+        for (MemberSearchCondition condition : conditions()) {
+            if (condition.getAgeGoe() == null || condition.getAgeLoe() == null) {
+                continue; // QueryDSL search 는 나이 조건 둘다 필요하다. ( ageBetween )
+            }
+            assertThat(memberTeamSqlRepository.search(condition))
+                    .containsExactlyInAnyOrderElementsOf(memberRepository.search(condition));
+        }
+    }
+
+    @Test
+    public void pageParity(){
+        List<PageRequest> pageables = List.of(
+                PageRequest.of(0, 5),
+                PageRequest.of(1, 3, Sort.by(Sort.Order.desc("age"))),
+                PageRequest.of(0, 4, Sort.by("username")),
+                PageRequest.of(2, 2, Sort.by(Sort.Order.desc("memberId"))));
+        for (MemberSearchCondition condition : conditions()) {
+            for (PageRequest pageable : pageables) {
+                Page<MemberTeamDto> expected = memberRepository.searchPageComplex(condition, pageable);
+                List<MemberTeamDto> content = memberTeamSqlRepository.searchContent(condition, pageable);
+
+                assertThat(content).containsExactlyElementsOf(expected.getContent());
+                assertThat(memberTeamSqlRepository.count(condition)).isEqualTo(expected.getTotalElements());
+            }
+        }
+    }
+
+    @Test
+    public void unsupportedSort(){
+        MemberSearchCondition condition = new MemberSearchCondition();
+        assertThatThrownBy(() -> memberTeamSqlRepository.searchContent(condition, PageRequest.of(0, 5, Sort.by("teamName"))))
+                .isInstanceOf(UnsupportedSortException.class);
+    }
+
+    private List<MemberSearchCondition> conditions() {
+        MemberSearchCondition all = new MemberSearchCondition();
+        MemberSearchCondition byTeam = new MemberSearchCondition();
+        byTeam.setTeamName("teamB");
+        MemberSearchCondition byAge = new MemberSearchCondition();
+        byAge.setAgeGoe(20);
+        byAge.setAgeLoe(70);
+        MemberSearchCondition byAll = new MemberSearchCondition();
+        byAll.setUsername("member3");
+        byAll.setTeamName("teamA");
+        byAll.setAgeGoe(0);
+        byAll.setAgeLoe(100);
+        return List.of(all, byTeam, byAge, byAll);
+    }
+}
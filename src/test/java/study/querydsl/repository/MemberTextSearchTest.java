@@ -0,0 +1,124 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// 인덱스는 커밋 시점에 갱신되므로 테스트 데이터를 커밋한다. ( @Transactional 사용X )
+@SpringBootTest
+class MemberTextSearchTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    MemberRepository memberRepository;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberSearchIndexer memberSearchIndexer;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    TransactionTemplate transactionTemplate;
+
+    @BeforeEach
+    public void before(){
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team red = new Team("Red Dragons");
+            Team blue = new Team("Blue Whales");
+            em.persist(red);
+            em.persist(blue);
+            em.persist(new Member("kim minsu", 10, red));
+            em.persist(new Member("kim jisu", 20, blue));
+            em.persist(new Member("lee minho", 30, blue));
+            em.persist(new Member("park", 40, red));
+        });
+    }
+
+    @AfterEach
+    public void after() throws InterruptedException {
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+        memberSearchIndexer.rebuild(); // 벌크 삭제는 인덱스에 반영되지 않는다.
+    }
+
+    @Test
+    public void tokenSearch(){
+        List<MemberTeamDto> result = memberRepository.searchText("kim", MemberTextSearchMode.TOKEN, 10);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("kim minsu", "kim jisu");
+
+        // 팀 이름으로도 검색된다.
+        List<MemberTeamDto> byTeam = memberRepository.searchText("dragons", MemberTextSearchMode.TOKEN, 10);
+        assertThat(byTeam).extracting("username").containsExactlyInAnyOrder("kim minsu", "park");
+    }
+
+    @Test
+    public void prefixSearch(){
+        List<MemberTeamDto> result = memberRepository.searchText("Min", MemberTextSearchMode.PREFIX, 10);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("kim minsu", "lee minho");
+    }
+
+    @Test
+    public void fuzzySearch(){
+        List<MemberTeamDto> result = memberRepository.searchText("prak", MemberTextSearchMode.FUZZY, 10);
+        assertThat(result).extracting("username").containsExactly("park");
+    }
+
+    @Test
+    public void rankedByRelevance(){
+        // 이름 두 토큰이 모두 일치하는 회원이 먼저 나온다.
+        List<MemberTeamDto> result = memberRepository.searchText("kim jisu", MemberTextSearchMode.TOKEN, 10);
+        assertThat(result).extracting("username").startsWith("kim jisu");
+    }
+
+    @Test
+    public void teamRenameReindexesMembers(){
+        transactionTemplate.executeWithoutResult(status -> {
+            Team team = em.createQuery("SELECT t FROM Team t WHERE t.name = :name", Team.class)
+                    .setParameter("name", "Blue Whales")
+                    .getSingleResult();
+            team.setName("Green Turtles");
+        });
+
+        List<MemberTeamDto> result = memberRepository.searchText("turtles", MemberTextSearchMode.TOKEN, 10);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("kim jisu", "lee minho");
+        assertThat(memberRepository.searchText("whales", MemberTextSearchMode.TOKEN, 10)).isEmpty();
+    }
+
+    @Test
+    public void rebuildIndex() throws InterruptedException {
+        memberSearchIndexer.rebuild();
+        assertThat(memberRepository.searchText("park", MemberTextSearchMode.TOKEN, 10)).hasSize(1);
+    }
+
+    @Test // 벌크 팀 이동 후 커밋되면 옮겨진 회원이 다시 인덱싱된다.
+    public void moveToTeamReindexesMembers(){
+        transactionTemplate.executeWithoutResult(status -> {
+            Long parkId = em.createQuery("SELECT m.id FROM Member m WHERE m.username = 'park'", Long.class).getSingleResult();
+            Long blueId = em.createQuery("SELECT t.id FROM Team t WHERE t.name = 'Blue Whales'", Long.class).getSingleResult();
+            memberJpaRepository.moveToTeam(List.of(parkId), blueId);
+        });
+
+        List<MemberTeamDto> result = memberRepository.searchText("whales", MemberTextSearchMode.TOKEN, 10);
+        assertThat(result).extracting("username").containsExactlyInAnyOrder("kim jisu", "lee minho", "park");
+    }
+}
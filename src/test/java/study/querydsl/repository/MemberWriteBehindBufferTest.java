@@ -0,0 +1,216 @@
+package study.querydsl.repository;
+
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.querydsl.cache.MemberTeamCacheInvalidator;
+import study.querydsl.dto.MemberTeamDto;
+import study.querydsl.readmodel.MemberTeamViewUpdater;
+import study.querydsl.entity.Member;
+import study.querydsl.entity.Team;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// flush 는 별도 트랜잭션에서 커밋하므로 테스트 데이터를 커밋한다. ( @Transactional 사용X )
+@SpringBootTest
+class MemberWriteBehindBufferTest {
+
+    @Autowired
+    EntityManager em;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Autowired
+    MemberJpaRepository memberJpaRepository;
+
+    @Autowired
+    MemberTeamCacheInvalidator cacheInvalidator;
+
+    @Autowired
+    MemberTeamViewUpdater memberTeamViewUpdater;
+
+    TransactionTemplate transactionTemplate;
+    MemberWriteBehindBuffer buffer;
+    Long member1Id;
+    Long member2Id;
+
+    @BeforeEach
+    public void before(){
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        // 주기적인 flush 가 테스트 중간에 끼어들지 않도록 주기를 길게 준다.
+        buffer = new MemberWriteBehindBuffer(em, jdbcTemplate, transactionManager, cacheInvalidator, memberTeamViewUpdater, 2, 60_000, 100, 3);
+        transactionTemplate.executeWithoutResult(status -> {
+            Team teamA = new Team("teamA");
+            em.persist(teamA);
+            Member member1 = new Member("member1", 10, teamA);
+            Member member2 = new Member("member2", 20, teamA);
+            em.persist(member1);
+            em.persist(member2);
+            member1Id = member1.getId();
+            member2Id = member2.getId();
+        });
+    }
+
+    @AfterEach
+    public void after(){
+        buffer.shutdown();
+        transactionTemplate.executeWithoutResult(status -> {
+            em.createQuery("DELETE FROM Member m").executeUpdate();
+            em.createQuery("DELETE FROM Team t").executeUpdate();
+        });
+    }
+
+    @Test
+    public void coalesceAndFlush(){
+        for (int age = 11; age <= 100; age++) {
+            buffer.updateAge(member1Id, age);
+        }
+        buffer.updateUsername(member1Id, "renamed");
+        buffer.updateAge(member2Id, 21);
+
+        assertThat(buffer.pendingCount()).isEqualTo(2);
+        assertThat(ageInDb(member1Id)).isEqualTo(10); // 아직 반영 전
+
+        // read-your-writes
+        List<MemberTeamDto> read = buffer.overlay(memberJpaRepository.findAllByIdsAsDto(List.of(member1Id, member2Id)));
+        assertThat(read).extracting("age").containsExactly(100, 21);
+        assertThat(read).extracting("username").containsExactly("renamed", "member2");
+        assertThat(read).extracting("teamName").containsOnly("teamA");
+
+        assertThat(buffer.flush()).isEqualTo(2); // 회원당 update 한번
+        assertThat(buffer.pendingCount()).isZero();
+        assertThat(ageInDb(member1Id)).isEqualTo(100);
+        assertThat(ageInDb(member2Id)).isEqualTo(21);
+        assertThat(jdbcTemplate.queryForObject("select username from member where member_id = ?", String.class, member1Id))
+                .isEqualTo("renamed");
+
+        // 위 조회로 채워진 니어 캐시는 flush 에서 무효화된다.
+        assertThat(memberJpaRepository.findAllByIdsAsDto(List.of(member1Id, member2Id)))
+                .extracting("age").containsExactly(100, 21);
+    }
+
+    @Test
+    public void backpressureWhenFull(){
+        buffer.updateAge(member1Id, 30);
+        buffer.updateAge(member2Id, 40);
+
+        // 이미 대기중인 회원은 자리를 차지하지 않는다.
+        buffer.updateAge(member1Id, 31);
+        assertThat(buffer.pendingCount()).isEqualTo(2);
+
+        // 가득 차면 flush 를 당겨서 실행하고 자리가 날 때까지 기다린다.
+        buffer.updateAge(-1L, 50);
+        assertThat(ageInDb(member1Id)).isEqualTo(31);
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void rejectWhenFlushCannotKeepUp(){
+        buffer.updateAge(member1Id, 30);
+        buffer.updateAge(member2Id, 40);
+
+        // flush 가 끝나지 않으면 ( 모니터를 잡고 있으면 ) offerTimeout 후 거절한다.
+        synchronized (buffer) {
+            assertThatThrownBy(() -> buffer.updateAge(-1L, 50))
+                    .isInstanceOf(RejectedExecutionException.class);
+        }
+    }
+
+    @Test
+    public void flushOnShutdown(){
+        buffer.updateAge(member2Id, 99);
+        buffer.shutdown();
+        assertThat(ageInDb(member2Id)).isEqualTo(99);
+    }
+
+    @Test // flush 가 실패하는 동안 들어온 변경은 덮어쓰지 않고 실패한 변경과 합친다.
+    public void flushFailureWithConcurrentUpdate() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch updated = new CountDownLatch(1);
+        AtomicBoolean failOnce = new AtomicBoolean(true);
+        MemberTeamViewUpdater failingUpdater = new MemberTeamViewUpdater(jdbcTemplate, em) {
+            @Override
+            public void updateAttributes(List<Object[]> ageUsernameMemberId) {
+                if (failOnce.getAndSet(false)) {
+                    flushing.countDown();
+                    await(updated);
+                    throw new IllegalStateException("flush failure");
+                }
+                super.updateAttributes(ageUsernameMemberId);
+            }
+        };
+        MemberWriteBehindBuffer failing = new MemberWriteBehindBuffer(em, jdbcTemplate, transactionManager, cacheInvalidator, failingUpdater, 2, 60_000, 100, 3);
+        try {
+            failing.updateAge(member1Id, 30);
+            CompletableFuture<Integer> flush = CompletableFuture.supplyAsync(failing::flush);
+            await(flushing);
+            failing.updateUsername(member1Id, "newer"); // 실패할 flush 가 진행중일 때 들어온 변경
+            updated.countDown();
+
+            assertThatThrownBy(flush::join).hasRootCauseMessage("flush failure");
+            assertThat(failing.pendingCount()).isEqualTo(1);
+            assertThat(failing.remainingCapacity()).isEqualTo(1); // 합쳐진 회원 하나만 자리를 차지한다.
+            MemberTeamDto read = failing.overlay(new MemberTeamDto(member1Id, "member1", 10, null, null));
+            assertThat(read.getAge()).isEqualTo(30);
+            assertThat(read.getUsername()).isEqualTo("newer");
+
+            assertThat(failing.flush()).isEqualTo(1);
+            assertThat(ageInDb(member1Id)).isEqualTo(30);
+            assertThat(jdbcTemplate.queryForObject("select username from member where member_id = ?", String.class, member1Id))
+                    .isEqualTo("newer");
+            assertThat(failing.remainingCapacity()).isEqualTo(2);
+        } finally {
+            failing.shutdown();
+        }
+    }
+
+    @Test // 계속 실패하는 회원은 혼자 재시도하다가 maxAttempts 번 실패하면 버린다. ( 같은 배치의 다른 회원은 반영한다. )
+    public void dropAfterMaxAttempts(){
+        buffer.updateUsername(member1Id, "x".repeat(1000)); // 컬럼 길이 초과로 항상 실패
+        buffer.updateAge(member2Id, 21);
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(RuntimeException.class); // 배치 전체 실패
+        assertThat(ageInDb(member2Id)).isEqualTo(20);
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(RuntimeException.class); // 한 회원씩 재시도
+        assertThat(ageInDb(member2Id)).isEqualTo(21);
+        assertThat(buffer.pendingCount()).isEqualTo(1);
+
+        assertThatThrownBy(buffer::flush).isInstanceOf(RuntimeException.class);
+        assertThat(buffer.droppedCount()).isEqualTo(1);
+        assertThat(buffer.pendingCount()).isZero();
+        assertThat(buffer.remainingCapacity()).isEqualTo(2);
+        assertThat(buffer.flush()).isZero();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Integer ageInDb(Long memberId) {
+        return jdbcTemplate.queryForObject("select age from member where member_id = ?", Integer.class, memberId);
+    }
+}
@@ -0,0 +1,150 @@
+package study.querydsl.slowquery;
+
+import com.querydsl.jpa.impl.JPAQueryFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import static study.querydsl.entity.QMember.member;
+import static study.querydsl.entity.QTeam.team;
+
+// 모든 select 를 느린 쿼리로 보도록 기준을 0 으로 낮춘다.
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "member.slow-query.threshold=0ms",
+        "member.slow-query.explain-interval=0ms",
+        "member.slow-query.admin-endpoint=true",
+        "spring.datasource.url=jdbc:h2:mem:slow-query;DB_CLOSE_DELAY=-1" // 설정이 다른 컨텍스트는 DB 를 따로 쓴다.
+})
+class SlowQueryExplainerTest {
+
+    @Autowired
+    SlowQueryExplainer slowQueryExplainer;
+
+    @Autowired
+    JPAQueryFactory queryFactory;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    MockMvc mockMvc;
+
+    @BeforeEach
+    public void before(){
+        slowQueryExplainer.clear();
+    }
+
+    @Test
+    public void captureExplainPlan() throws InterruptedException {
+        queryFactory
+                .select(member.username)
+                .from(member)
+                .leftJoin(member.team, team)
+                .where(team.name.eq("teamA"), member.age.goe(20))
+                .fetch();
+
+        List<SlowQueryPlan> plans = await(1);
+        SlowQueryPlan plan = plans.get(0);
+        // 바인딩한 값으로 실행계획을 구하지만 SQL / 실행계획에는 값이 남지 않는다.
+        assertThat(plan.sql()).contains("?").doesNotContain("teamA");
+        assertThat(plan.plan()).containsIgnoringCase("member").doesNotStartWith("EXPLAIN 실패").doesNotContain("teamA");
+    }
+
+    @Test
+    public void adminEndpoint() throws Exception {
+        queryFactory.select(member.id).from(member).where(member.username.eq("secret-name")).fetch();
+        await(1);
+
+        String body = mockMvc.perform(get("/admin/slow-queries"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].fingerprint").exists())
+                .andReturn().getResponse().getContentAsString();
+        assertThat(body).doesNotContain("secret-name");
+
+        mockMvc.perform(delete("/admin/slow-queries")).andExpect(status().isOk());
+        assertThat(slowQueryExplainer.recent()).isEmpty();
+    }
+
+    @Test
+    public void onePlanPerFingerprint() throws InterruptedException {
+        for (int age = 0; age < 5; age++) {
+            queryFactory.select(member.id).from(member).where(member.age.eq(age)).fetch();
+        }
+        jdbcTemplate.update("update member set age = age where member_id = -1"); // select 가 아니면 EXPLAIN 하지 않는다.
+
+        assertThat(await(1)).hasSize(1);
+        Thread.sleep(200);
+        assertThat(slowQueryExplainer.recent()).hasSize(1);
+    }
+
+    // 큐가 가득 차서 버린 쿼리 모양은 기록하지 않으므로 큐가 비면 다시 잡힌다.
+    @Test
+    public void rejectedCaptureIsNotSuppressed() throws InterruptedException {
+        SlowQueryProperties properties = new SlowQueryProperties();
+        properties.setThreshold(Duration.ZERO);
+        properties.setExplainInterval(Duration.ZERO);
+        CountDownLatch release = new CountDownLatch(1);
+        JdbcTemplate blocking = new JdbcTemplate() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <T> List<T> query(PreparedStatementCreator psc, RowMapper<T> rowMapper) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return (List<T>) List.of("plan");
+            }
+        };
+        SlowQueryExplainer explainer = new SlowQueryExplainer(properties, blocking);
+        try {
+            for (int i = 0; i < 20; i++) { // 실행 중 1 + 큐 16 을 넘긴다.
+                explainer.capture("select * from t" + i, List::of, 1);
+            }
+            release.countDown();
+            for (int i = 0; i < 100 && explainer.recent().size() < 17; i++) {
+                Thread.sleep(20);
+            }
+            assertThat(explainer.recent()).hasSize(17);
+
+            explainer.capture("select * from t19", List::of, 1);
+            for (int i = 0; i < 100 && explainer.recent().size() < 18; i++) {
+                Thread.sleep(20);
+            }
+            assertThat(explainer.recent()).hasSize(18);
+            assertThat(explainer.recent().get(0).sql()).isEqualTo("select * from t19");
+        } finally {
+            explainer.shutdown();
+        }
+    }
+
+    @Test
+    public void fingerprint(){
+        assertThat(SlowQueryExplainer.fingerprint("select * from member where age = 10 and username = 'a'"))
+                .isEqualTo(SlowQueryExplainer.fingerprint("select *  from member\nwhere age = 20 and username = 'b''c'"))
+                .isNotEqualTo(SlowQueryExplainer.fingerprint("select * from member where age = 10"));
+    }
+
+    private List<SlowQueryPlan> await(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && slowQueryExplainer.recent().size() < count; i++) {
+            Thread.sleep(50);
+        }
+        return slowQueryExplainer.recent();
+    }
+}
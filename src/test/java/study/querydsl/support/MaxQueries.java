@@ -0,0 +1,29 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.ExtendWith;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/*
+ * 테스트 메소드 본문에서 실행된 select 수가 value 를 넘으면 실패시킨다. ( @BeforeEach / @AfterEach 는 세지 않는다. )
+ * N+1, 생각지 못한 count 쿼리가 추가되면 테스트에서 바로 드러나게 한다.
+ * insert / update / delete 는 기본으로 세지 않는다. ( 테스트 데이터를 만드는 flush 가 조회 시점에 나가기 때문 )
+ * 회원마다 update 하는 N+1 을 잡으려면 dml 을 준다.
+ * 테스트 스레드와 그 요청이 넘긴 스레드 ( MockMvc asyncDispatch 의 요청 스레드, 청크 병렬 조회 ) 의 쿼리만 센다. ( 백그라운드 스레드 제외 )
+ *
+ * ex) @Test @MaxQueries(2) public void searchPage() { ... } // 컨텐츠 + 카운트
+ *     @Test @MaxQueries(value = 0, dml = 1) public void bulkUpdate() { ... }
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@ExtendWith(SqlStatementBudgetExtension.class)
+public @interface MaxQueries {
+
+    int value();
+
+    // insert / update / delete / merge 최대 수 ( 음수면 세지 않는다. )
+    int dml() default -1;
+}
@@ -0,0 +1,82 @@
+package study.querydsl.support;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+/*
+ * 블록 단위 select 수 / DML ( insert, update, delete, merge ) 수 검사
+ * ex) List<MemberTeamDto> result = QueryBudget.assertMaxQueries(1, () -> memberRepository.search(condition));
+ *     QueryBudget.assertMaxDml(2, () -> memberJpaRepository.moveToTeam(ids, teamId)); // 회원마다 update 하지 않는다.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertMaxQueries(int max, Supplier<T> block) {
+        return assertMax(max, -1, block);
+    }
+
+    public static void assertMaxQueries(int max, Runnable block) {
+        assertMaxQueries(max, () -> {
+            block.run();
+            return null;
+        });
+    }
+
+    // DML 만 센다. JPA 변경은 트랜잭션 안에서 flush 되어야 세므로 블록 안에서 flush / 커밋까지 실행한다.
+    public static <T> T assertMaxDml(int max, Supplier<T> block) {
+        return assertMax(-1, max, block);
+    }
+
+    public static void assertMaxDml(int max, Runnable block) {
+        assertMaxDml(max, () -> {
+            block.run();
+            return null;
+        });
+    }
+
+    // 음수면 세지 않는다.
+    private static <T> T assertMax(int maxSelects, int maxDml, Supplier<T> block) {
+        if (!SqlStatementRecorder.isInstalled()) {
+            throw new IllegalStateException("SqlStatementRecorder 가 등록된 스프링 테스트에서만 사용할 수 있습니다.");
+        }
+        SqlStatementRecorder.Recording recording = SqlStatementRecorder.start();
+        T result;
+        try {
+            result = block.get();
+        } catch (RuntimeException | Error e) {
+            recording.stop();
+            throw e;
+        }
+        List<String> selects = recording.stop();
+        if (maxSelects >= 0) {
+            check(maxSelects, selects, "block");
+        }
+        if (maxDml >= 0) {
+            checkDml(maxDml, recording.dml(), "block");
+        }
+        return result;
+    }
+
+    static void check(int max, List<String> statements, String name) {
+        check(max, statements, name, "select");
+    }
+
+    static void checkDml(int max, List<String> statements, String name) {
+        check(max, statements, name, "insert / update / delete");
+    }
+
+    private static void check(int max, List<String> statements, String name, String kind) {
+        if (statements.size() <= max) {
+            return;
+        }
+        StringBuilder message = new StringBuilder()
+                .append(name).append(" : ").append(kind).append(" 는 최대 ").append(max).append("번이어야 하는데 ")
+                .append(statements.size()).append("번 실행되었습니다.");
+        for (int i = 0; i < statements.size(); i++) {
+            message.append("\n  ").append(i + 1).append(") ").append(statements.get(i));
+        }
+        throw new AssertionError(message.toString());
+    }
+}
@@ -0,0 +1,49 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.extension.AfterTestExecutionCallback;
+import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.junit.platform.commons.support.AnnotationSupport;
+
+// @MaxQueries 를 붙인 테스트 메소드 본문의 select ( dml 을 주면 DML 도 ) 수를 검사한다. ( 메소드에 붙인 값이 클래스에 붙인 값보다 우선 )
+public class SqlStatementBudgetExtension implements BeforeTestExecutionCallback, AfterTestExecutionCallback {
+
+    private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(SqlStatementBudgetExtension.class);
+
+    @Override
+    public void beforeTestExecution(ExtensionContext context) {
+        if (maxQueries(context) == null) {
+            return;
+        }
+        if (!SqlStatementRecorder.isInstalled()) {
+            throw new IllegalStateException("@MaxQueries 는 SqlStatementRecorder 가 등록된 스프링 테스트 ( @SpringBootTest ) 에서만 사용할 수 있습니다.");
+        }
+        context.getStore(NAMESPACE).put(context.getUniqueId(), SqlStatementRecorder.start());
+    }
+
+    @Override
+    public void afterTestExecution(ExtensionContext context) {
+        SqlStatementRecorder.Recording recording = context.getStore(NAMESPACE)
+                .remove(context.getUniqueId(), SqlStatementRecorder.Recording.class);
+        if (recording == null) {
+            return;
+        }
+        // 테스트가 이미 실패했으면 원래 실패를 그대로 보여준다.
+        if (context.getExecutionException().isPresent()) {
+            recording.stop();
+            return;
+        }
+        MaxQueries maxQueries = maxQueries(context);
+        QueryBudget.check(maxQueries.value(), recording.stop(), context.getDisplayName());
+        if (maxQueries.dml() >= 0) {
+            QueryBudget.checkDml(maxQueries.dml(), recording.dml(), context.getDisplayName());
+        }
+    }
+
+    private static MaxQueries maxQueries(ExtensionContext context) {
+        return context.getTestMethod()
+                .flatMap(method -> AnnotationSupport.findAnnotation(method, MaxQueries.class))
+                .or(() -> context.getTestClass().flatMap(type -> AnnotationSupport.findAnnotation(type, MaxQueries.class)))
+                .orElse(null);
+    }
+}
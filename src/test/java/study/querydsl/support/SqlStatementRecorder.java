@@ -0,0 +1,93 @@
+package study.querydsl.support;
+
+import com.p6spy.engine.common.StatementInformation;
+import com.p6spy.engine.event.SimpleJdbcEventListener;
+import org.springframework.stereotype.Component;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Pattern;
+
+/*
+ * p6spy 로 실행된 select 와 insert / update / delete / merge 를 따로 기록한다. ( 테스트 컨텍스트에서만 등록되는 리스너 )
+ * 기록은 start() 를 호출한 스레드와 그 요청이 일을 넘기는 스레드 ( REQUEST_THREAD_PREFIXES ) 에서 실행된 것만 모은다.
+ * 같은 시간에 도는 백그라운드 스레드 ( write-behind flush, 통계 갱신, 느린 쿼리 EXPLAIN 등 ) 의 쿼리는 세지 않는다.
+ * 여러 기록이 겹치면 모두에 남긴다. 시퀀스 조회 ( select next value for ... ) 는 세지 않는다.
+ * JDBC 배치는 executeBatch 한번을 한번으로 센다.
+ */
+@Component
+public class SqlStatementRecorder extends SimpleJdbcEventListener {
+
+    private static final Pattern LEADING_COMMENT = Pattern.compile("^\\s*(?:/\\*.*?\\*/\\s*)+", Pattern.DOTALL);
+    private static final Pattern SEQUENCE = Pattern.compile("(?i)^select\\s+(?:next value for|nextval)"); // id 생성용 시퀀스 조회
+    private static final Pattern DML = Pattern.compile("(?i)^(?:insert|update|delete|merge)\\b");
+    // MemberDeadlines 의 요청 스레드, MemberJpaRepository 의 청크 병렬 조회 스레드
+    private static final List<String> REQUEST_THREAD_PREFIXES = List.of("member-request-", "member-chunk-");
+    private static final List<Recording> ACTIVE = new CopyOnWriteArrayList<>();
+    private static volatile boolean installed;
+
+    public SqlStatementRecorder() {
+        installed = true;
+    }
+
+    static boolean isInstalled() {
+        return installed;
+    }
+
+    static Recording start() {
+        Recording recording = new Recording();
+        ACTIVE.add(recording);
+        return recording;
+    }
+
+    @Override
+    public void onAfterAnyExecute(StatementInformation statementInformation, long timeElapsedNanos, SQLException e) {
+        if (ACTIVE.isEmpty() || statementInformation.getSql() == null) {
+            return;
+        }
+        String sql = LEADING_COMMENT.matcher(statementInformation.getSql()).replaceFirst("").strip();
+        boolean select = (sql.regionMatches(true, 0, "select", 0, 6) || sql.regionMatches(true, 0, "with", 0, 4))
+                && !SEQUENCE.matcher(sql).lookingAt();
+        boolean dml = !select && DML.matcher(sql).lookingAt();
+        if (!select && !dml) {
+            return;
+        }
+        Thread thread = Thread.currentThread();
+        boolean requestThread = REQUEST_THREAD_PREFIXES.stream().anyMatch(thread.getName()::startsWith);
+        String statement = "[" + thread.getName() + "] " + sql;
+        for (Recording recording : ACTIVE) {
+            if (recording.owner == thread || requestThread) {
+                recording.add(select, statement);
+            }
+        }
+    }
+
+    static final class Recording {
+
+        private final Thread owner = Thread.currentThread();
+        private final List<String> selects = Collections.synchronizedList(new ArrayList<>());
+        private final List<String> dml = Collections.synchronizedList(new ArrayList<>());
+
+        private void add(boolean select, String statement) {
+            (select ? selects : dml).add(statement);
+        }
+
+        // 기록을 멈추고 select 를 돌려준다.
+        List<String> stop() {
+            ACTIVE.remove(this);
+            synchronized (selects) {
+                return List.copyOf(selects);
+            }
+        }
+
+        // stop() 이후에 호출한다.
+        List<String> dml() {
+            synchronized (dml) {
+                return List.copyOf(dml);
+            }
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package study.querydsl.support;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest
+class SqlStatementRecorderTest {
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test // 같은 시간에 도는 백그라운드 스레드의 조회는 세지 않는다.
+    public void ignoreBackgroundThreads(){
+        QueryBudget.assertMaxQueries(0, () -> runOn("member-write-behind", () -> jdbcTemplate.queryForObject("select 1", Integer.class)));
+    }
+
+    @Test // 요청이 일을 넘기는 스레드의 조회는 센다.
+    public void countRequestThreads(){
+        assertThatThrownBy(() -> QueryBudget.assertMaxQueries(0,
+                () -> runOn("member-request-test", () -> jdbcTemplate.queryForObject("select 1", Integer.class))))
+                .isInstanceOf(AssertionError.class);
+    }
+
+    @Test // DML 은 따로 세고, 요청할 때만 검사한다.
+    public void countDml(){
+        Runnable update = () -> jdbcTemplate.update("update member set age = age where member_id = -1");
+
+        QueryBudget.assertMaxQueries(0, update);
+        QueryBudget.assertMaxDml(1, update);
+        assertThatThrownBy(() -> QueryBudget.assertMaxDml(1, () -> {
+            update.run();
+            update.run();
+        })).isInstanceOf(AssertionError.class).hasMessageContaining("update");
+    }
+
+    private static void runOn(String threadName, Runnable task) {
+        Thread thread = new Thread(task, threadName);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}